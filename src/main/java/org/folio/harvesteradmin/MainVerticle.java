@@ -1,40 +1,31 @@
 package org.folio.harvesteradmin;
 
 import io.vertx.core.AbstractVerticle;
+import io.vertx.core.DeploymentOptions;
 import io.vertx.core.Promise;
-import io.vertx.core.http.HttpServerOptions;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.folio.harvesteradmin.dataaccess.statics.LegacyServiceConfig;
-import org.folio.harvesteradmin.service.HarvestAdminService;
-import org.folio.okapi.common.Config;
-import org.folio.tlib.RouterCreator;
-import org.folio.tlib.api.HealthApi;
-import org.folio.tlib.api.Tenant2Api;
 import org.folio.tlib.postgres.TenantPgPool;
 
-
+/**
+ * Reads the module's configuration and deploys the configured number of
+ * {@link ServiceVerticle} instances, so that requests are served on several event loops.
+ */
 public class MainVerticle extends AbstractVerticle {
+  private static final Logger logger = LogManager.getLogger(MainVerticle.class);
+
   @Override
   public void start(Promise<Void> promise) {
 
     TenantPgPool.setModule("mod-harvester-admin"); // Postgres - schema separation
 
-    // listening port
-    final int port = Integer.parseInt(Config.getSysConf("http.port", "port", "8081", config()));
     new LegacyServiceConfig();
 
-    HarvestAdminService harvestAdminService = new HarvestAdminService();
-    RouterCreator[] routerCreators = {
-        harvestAdminService,
-        new Tenant2Api(harvestAdminService),
-        new HealthApi(),
-    };
-    HttpServerOptions so = new HttpServerOptions()
-        .setHandle100ContinueAutomatically(true);
-    RouterCreator.mountAll(vertx, routerCreators)
-        .compose(router ->
-            vertx.createHttpServer(so)
-                .requestHandler(router)
-                .listen(port).mapEmpty())
+    int instances = LegacyServiceConfig.verticleInstances;
+    logger.info("Deploying " + instances + " service verticle instance(s)");
+    vertx.deployVerticle(ServiceVerticle.class.getName(),
+            new DeploymentOptions().setConfig(config()).setInstances(instances))
         .<Void>mapEmpty()
         .onComplete(promise);
   }
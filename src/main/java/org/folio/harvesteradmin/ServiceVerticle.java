@@ -0,0 +1,42 @@
+package org.folio.harvesteradmin;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Promise;
+import io.vertx.core.http.HttpServerOptions;
+import org.folio.harvesteradmin.metrics.MetricsApi;
+import org.folio.harvesteradmin.service.HarvestAdminService;
+import org.folio.okapi.common.Config;
+import org.folio.tlib.RouterCreator;
+import org.folio.tlib.api.HealthApi;
+import org.folio.tlib.api.Tenant2Api;
+
+/**
+ * Serves the module's APIs on one event loop. {@link MainVerticle} deploys as many instances as
+ * configured, and Vert.x shares the listening port between them.
+ */
+public class ServiceVerticle extends AbstractVerticle {
+  @Override
+  public void start(Promise<Void> promise) {
+
+    // listening port
+    final int port = Integer.parseInt(Config.getSysConf("http.port", "port", "8081", config()));
+
+    HarvestAdminService harvestAdminService = new HarvestAdminService();
+    RouterCreator[] routerCreators = {
+        harvestAdminService,
+        new Tenant2Api(harvestAdminService),
+        new HealthApi(),
+        new MetricsApi(),
+    };
+    HttpServerOptions so = new HttpServerOptions()
+        .setHandle100ContinueAutomatically(true);
+    RouterCreator.mountAll(vertx, routerCreators)
+        .compose(router ->
+            vertx.createHttpServer(so)
+                .requestHandler(router)
+                .listen(port).mapEmpty())
+        .<Void>mapEmpty()
+        .onComplete(promise);
+  }
+
+}
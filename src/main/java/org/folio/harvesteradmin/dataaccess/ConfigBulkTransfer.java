@@ -0,0 +1,542 @@
+package org.folio.harvesteradmin.dataaccess;
+
+import static org.folio.harvesteradmin.dataaccess.statics.ApiPaths.HARVESTER_HARVESTABLES_PATH;
+import static org.folio.harvesteradmin.dataaccess.statics.ApiPaths.HARVESTER_STEPS_PATH;
+import static org.folio.harvesteradmin.dataaccess.statics.ApiPaths.HARVESTER_STORAGES_PATH;
+import static org.folio.harvesteradmin.dataaccess.statics.ApiPaths.HARVESTER_TRANSFORMATIONS_PATH;
+import static org.folio.harvesteradmin.dataaccess.statics.ApiPaths.HARVESTER_TSAS_PATH;
+import static org.folio.harvesteradmin.dataaccess.statics.EntityRootNames.mapToNameOfRootOfEntity;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.WriteStream;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.xml.stream.XMLStreamException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.harvesteradmin.dataaccess.dataconverters.JsonToHarvesterXml;
+import org.folio.harvesteradmin.dataaccess.responsehandlers.ProcessedHarvesterResponse;
+import org.folio.harvesteradmin.dataaccess.responsehandlers.ProcessedHarvesterResponseGetById;
+import org.folio.harvesteradmin.dataaccess.responsehandlers.ProcessedHarvesterResponsePost;
+import org.folio.harvesteradmin.dataaccess.statics.LegacyServiceConfig;
+import org.folio.harvesteradmin.service.SchemaValidation;
+import org.folio.okapi.common.GenericCompositeFuture;
+
+/**
+ * Exports and imports the Harvester configurations of a tenant -- storages, steps,
+ * transformations with their step associations, and harvestables -- as newline delimited JSON,
+ * one record per line: <code>{"entityType": "storage", "record": {...}}</code>.
+ * <br/><br/>
+ * An import writes the records in order of dependency, storages and steps first, then
+ * transformations, then harvestables, with a bounded number of writes in flight at a time.
+ * Each record is validated like a POST or PUT through the API would validate it, and a record
+ * may not take a name that another record of its type has in the Harvester.
+ * References by name to records of the same import are resolved in memory, and step
+ * associations (<code>"entityType": "tsa"</code>) are merged into their transformation, so that
+ * each transformation is written with all its steps at once. The outcome of each line is
+ * reported as a line of its own, as soon as it's known, and the writes wait while the response
+ * is not accepting more output.
+ */
+public class ConfigBulkTransfer {
+
+  private static final Logger logger = LogManager.getLogger(ConfigBulkTransfer.class);
+  private static final int EXPORT_PAGE_SIZE = 100;
+
+  enum EntityType {
+    storage(HARVESTER_STORAGES_PATH),
+    step(HARVESTER_STEPS_PATH),
+    transformation(HARVESTER_TRANSFORMATIONS_PATH),
+    tsa(HARVESTER_TSAS_PATH),
+    harvestable(HARVESTER_HARVESTABLES_PATH);
+
+    private final String harvesterPath;
+
+    EntityType(String harvesterPath) {
+      this.harvesterPath = harvesterPath;
+    }
+  }
+
+  private final Vertx vertx;
+  private final String tenant;
+  private final LegacyHarvesterStorage legacyStorage;
+  private final Map<EntityType, Map<String, ImportItem>> importedById = new HashMap<>();
+  private final Map<EntityType, Map<String, ImportItem>> importedByName = new HashMap<>();
+  private final Map<EntityType, Set<String>> existingIds = new HashMap<>();
+  private final Map<EntityType, Map<String, String>> existingIdsByName = new HashMap<>();
+  private Future<Void> drained;
+
+  /**
+   * Constructor.
+   */
+  public ConfigBulkTransfer(Vertx vertx, String tenant) {
+    this.vertx = vertx;
+    this.tenant = tenant;
+    this.legacyStorage = new LegacyHarvesterStorage(vertx, tenant);
+    for (EntityType type : EntityType.values()) {
+      importedById.put(type, new HashMap<>());
+      importedByName.put(type, new HashMap<>());
+    }
+  }
+
+  /**
+   * Writes all the tenant's config records to the stream, in order of dependency.
+   *
+   * @return the number of records exported, or a failure if any of the records could not be
+   *     retrieved from the Harvester, in which case the stream holds an incomplete export
+   */
+  public Future<Integer> exportTo(WriteStream<Buffer> out) {
+    final long started = System.currentTimeMillis();
+    List<EntityType> types = List.of(EntityType.storage, EntityType.step,
+        EntityType.transformation, EntityType.harvestable);
+    Future<Integer> export = Future.succeededFuture(0);
+    for (EntityType type : types) {
+      export = export.compose(count -> legacyStorage.getAllConfigRecords(type.harvesterPath)
+          .compose(briefRecords -> exportPages(type, briefRecords, 0, out))
+          .map(exported -> count + exported));
+    }
+    return export.onSuccess(count -> logger.info("Exported " + count + " config records in "
+        + (System.currentTimeMillis() - started) + " ms"));
+  }
+
+  /**
+   * Retrieves the full records of a page of brief records, concurrently, writes them to the
+   * stream in the order of the brief records, and continues with the next page once the stream
+   * has capacity.
+   */
+  private Future<Integer> exportPages(EntityType type, List<JsonObject> briefRecords, int offset,
+                                      WriteStream<Buffer> out) {
+    if (offset >= briefRecords.size()) {
+      return Future.succeededFuture(0);
+    }
+    List<String> ids = briefRecords
+        .subList(offset, Math.min(offset + EXPORT_PAGE_SIZE, briefRecords.size())).stream()
+        .map(brief -> brief.getString("id"))
+        .collect(Collectors.toList());
+    return new FetchPipeline<String, JsonObject>(vertx, "Export of " + type + "s",
+        LegacyServiceConfig.harvesterClientMaxInFlight,
+        LegacyServiceConfig.harvesterClientRetries,
+        LegacyServiceConfig.harvesterClientRetryBackoff)
+        .run(ids, id -> legacyStorage.getConfigRecordById(type.harvesterPath, id)
+            .compose(response -> {
+              if (response.wasOK()) {
+                return Future.succeededFuture(response.jsonObject());
+              } else if (response.wasNotFound()) {
+                return Future.succeededFuture(null); // deleted since it was listed
+              } else {
+                return Future.failedFuture(response.errorMessage());
+              }
+            }), null)
+        .compose(outcome -> {
+          if (outcome.failures() > 0) {
+            return Future.failedFuture("Could not retrieve " + outcome.failures() + " of "
+                + ids.size() + " " + type + "s from the Harvester, the export is incomplete");
+          }
+          for (JsonObject record : outcome.results()) {
+            out.write(Buffer.buffer(
+                new JsonObject().put("entityType", type.name()).put("record", record).encode()
+                    + "\n"));
+          }
+          return whenWritable(out).map(writable -> outcome.results().size());
+        })
+        .compose(exported -> exportPages(type, briefRecords, offset + EXPORT_PAGE_SIZE, out)
+            .map(more -> exported + more));
+  }
+
+  /**
+   * Waits for the stream to have capacity. Concurrent waiters share the one drain handler that
+   * a stream holds.
+   */
+  private Future<Void> whenWritable(WriteStream<Buffer> out) {
+    if (!out.writeQueueFull()) {
+      return Future.succeededFuture();
+    }
+    if (drained == null) {
+      Promise<Void> promise = Promise.promise();
+      out.drainHandler(v -> {
+        out.drainHandler(null);
+        drained = null;
+        promise.complete();
+      });
+      drained = promise.future();
+    }
+    return drained;
+  }
+
+  /**
+   * Imports config records from lines of newline delimited JSON, and writes the outcome of each
+   * line to the stream.
+   *
+   * @return the number of lines that were imported successfully
+   */
+  public Future<Integer> importFrom(List<String> lines, WriteStream<Buffer> out) {
+    final long started = System.currentTimeMillis();
+    int nonBlankLines = 0;
+    Map<EntityType, List<ImportItem>> itemsByType = new HashMap<>();
+    for (EntityType type : EntityType.values()) {
+      itemsByType.put(type, new ArrayList<>());
+    }
+    for (int i = 0; i < lines.size(); i++) {
+      if (lines.get(i).isBlank()) {
+        continue;
+      }
+      nonBlankLines++;
+      ImportItem item = ImportItem.parse(i + 1, lines.get(i));
+      if (item.error != null) {
+        report(out, item.result(400, item.error));
+      } else {
+        itemsByType.get(item.type).add(item);
+        register(item);
+      }
+    }
+    attachStepAssociations(itemsByType.get(EntityType.tsa), out);
+    List<Future<Set<String>>> listings = new ArrayList<>();
+    List<EntityType> types = List.of(EntityType.storage, EntityType.step,
+        EntityType.transformation, EntityType.harvestable);
+    for (EntityType type : types) {
+      listings.add(legacyStorage.getAllConfigRecords(type.harvesterPath).map(briefRecords -> {
+        Set<String> ids = new HashSet<>();
+        Map<String, String> idsByName = new HashMap<>();
+        for (JsonObject brief : briefRecords) {
+          ids.add(brief.getString("id"));
+          if (brief.getString("name") != null) {
+            idsByName.put(brief.getString("name"), brief.getString("id"));
+          }
+        }
+        existingIds.put(type, ids);
+        existingIdsByName.put(type, idsByName);
+        return ids;
+      }));
+    }
+    List<ImportItem> independent = new ArrayList<>(itemsByType.get(EntityType.storage));
+    independent.addAll(itemsByType.get(EntityType.step));
+    int[] imported = {0};
+    int linesToImport = nonBlankLines;
+    return GenericCompositeFuture.all(listings)
+        .compose(listed -> whenWritable(out))
+        .compose(writable -> importItems(independent, out, imported))
+        .compose(done -> importItems(itemsByType.get(EntityType.transformation), out, imported))
+        .compose(done -> importItems(itemsByType.get(EntityType.harvestable), out, imported))
+        .map(done -> {
+          logger.info("Imported " + imported[0] + " of " + linesToImport + " lines in "
+              + (System.currentTimeMillis() - started) + " ms");
+          return imported[0];
+        });
+  }
+
+  /**
+   * Assigns an ID to a record without one, and registers the record by ID and name for resolving
+   * references to it in memory.
+   */
+  private void register(ImportItem item) {
+    if (item.type == EntityType.tsa) {
+      return;
+    }
+    String id = item.record.getString("id");
+    if (id == null || id.isEmpty()) {
+      id = IdGenerator.nextId();
+      item.record.put("id", id);
+    }
+    importedById.get(item.type).put(id, item);
+    String name = item.record.getString("name");
+    if (name != null) {
+      importedByName.get(item.type).put(name, item);
+    }
+  }
+
+  /**
+   * Adds step associations to the transformations of the import that they refer to.
+   */
+  private void attachStepAssociations(List<ImportItem> tsaItems, WriteStream<Buffer> out) {
+    for (ImportItem tsa : tsaItems) {
+      String transformationId = tsa.record.getString("transformation");
+      ImportItem transformation = transformationId != null
+          ? importedById.get(EntityType.transformation).get(transformationId)
+          : importedByName.get(EntityType.transformation)
+              .get(tsa.record.getString("transformationName"));
+      if (transformation == null) {
+        report(out, tsa.result(422, "The transformation of the step association is not part of "
+            + "the import"));
+      } else {
+        if (!transformation.record.containsKey("stepAssociations")) {
+          transformation.record.put("stepAssociations", new JsonArray());
+        }
+        transformation.record.getJsonArray("stepAssociations").add(tsa.record);
+        transformation.attachedItems.add(tsa);
+      }
+    }
+  }
+
+  /**
+   * Imports the items with a bounded number in flight, reporting the outcome of each. An item
+   * holds its place in the pipeline until its outcome is written and the stream has capacity.
+   */
+  private Future<Void> importItems(List<ImportItem> items, WriteStream<Buffer> out,
+                                   int[] imported) {
+    return new FetchPipeline<ImportItem, JsonObject>(vertx, "Import",
+        LegacyServiceConfig.harvesterClientMaxInFlight, 0, 1)
+        .run(items, item -> importItem(item)
+            .otherwise(cause -> item.result(500, cause.getMessage()))
+            .compose(result -> {
+              if (result.getInteger("status") < 300) {
+                imported[0]++;
+              }
+              Future<Void> reported = report(out, result);
+              for (ImportItem attached : item.attachedItems) {
+                reported = report(out, attached.result(result.getInteger("status"),
+                    "Step association of transformation " + result.getString("id") + ": "
+                        + result.getString("message")));
+              }
+              return reported.map(result);
+            }), null)
+        .mapEmpty();
+  }
+
+  private Future<JsonObject> importItem(ImportItem item) {
+    SchemaValidation validation =
+        SchemaValidation.validateJsonObject(item.type.harvesterPath, item.record);
+    if (!validation.passed()) {
+      return Future.succeededFuture(item.result(400, validation.getErrorMessage().trim()));
+    }
+    switch (item.type) {
+      case transformation:
+        return importTransformation(item);
+      case harvestable:
+        return resolveHarvestableReferences(item).compose(resolved -> resolved.wasOK()
+            ? write(item, item.record)
+            : Future.succeededFuture(item.result(resolved.statusCode(),
+                resolved.errorMessage())));
+      default:
+        return write(item, item.record);
+    }
+  }
+
+  /**
+   * POSTs a new record or PUTs an existing one, unless its name is taken by another record.
+   */
+  private Future<JsonObject> write(ImportItem item, JsonObject record) {
+    String id = record.getString("id");
+    String name = record.getString("name");
+    String idOfName = name == null ? null : existingIdsByName.get(item.type).get(name);
+    if (idOfName != null && !idOfName.equals(id)) {
+      return Future.succeededFuture(item.result(422,
+          "The name '" + name + "' exists already in " + item.type.harvesterPath + "."));
+    }
+    boolean exists = existingIds.get(item.type).contains(id);
+    Buffer xml;
+    try {
+      xml = JsonToHarvesterXml.convertToHarvesterRecord(
+          record, mapToNameOfRootOfEntity(item.type.harvesterPath), tenant);
+    } catch (XMLStreamException e) {
+      return Future.succeededFuture(item.result(500, e.getMessage()));
+    }
+    return (exists
+        ? legacyStorage.harvesterPutRequest(item.type.harvesterPath + "/" + id)
+        : legacyStorage.harvesterPostRequest(item.type.harvesterPath))
+        .sendBuffer(xml)
+        .map(response -> {
+          if (response.statusCode() == LegacyHarvesterStorage.NO_CONTENT
+              || response.statusCode() == LegacyHarvesterStorage.CREATED) {
+            existingIds.get(item.type).add(id);
+            if (name != null) {
+              existingIdsByName.get(item.type).put(name, id);
+            }
+            return item.result(exists ? 200 : 201, exists ? "updated" : "created");
+          } else {
+            return item.result(response.statusCode(),
+                "The Harvester responded " + response.statusCode() + ": "
+                    + response.bodyAsString());
+          }
+        });
+  }
+
+  /**
+   * Writes a transformation with its step associations. A new transformation is POSTed without
+   * steps first, since the associations must refer to an existing transformation.
+   */
+  private Future<JsonObject> importTransformation(ImportItem item) {
+    JsonArray associations = item.record.getJsonArray("stepAssociations", new JsonArray());
+    return resolveSteps(associations).compose(steps -> {
+      for (ProcessedHarvesterResponse step : steps) {
+        if (!step.wasOK()) {
+          return Future.succeededFuture(item.result(422,
+              "Referenced step not found: " + step.errorMessage()));
+        }
+      }
+      String id = item.record.getString("id");
+      JsonObject transformation = item.record.copy();
+      transformation.put("stepAssociations",
+          LegacyHarvesterStorage.makeStepAssociations(id, steps));
+      if (associations.isEmpty() || existingIds.get(item.type).contains(id)) {
+        return write(item, transformation);
+      }
+      JsonObject withoutSteps = item.record.copy();
+      withoutSteps.remove("stepAssociations");
+      return write(item, withoutSteps).compose(posted -> posted.getInteger("status") < 300
+          ? write(item, transformation).map(put -> put.getInteger("status") < 300 ? posted : put)
+          : Future.succeededFuture(posted));
+    });
+  }
+
+  /**
+   * Looks up the steps of a pipeline, in order of position, from the import if possible, or else
+   * from the Harvester.
+   */
+  private Future<List<ProcessedHarvesterResponse>> resolveSteps(JsonArray associations) {
+    List<JsonObject> ordered = new ArrayList<>();
+    associations.forEach(association -> ordered.add((JsonObject) association));
+    ordered.sort(Comparator.comparingInt(ConfigBulkTransfer::position));
+    List<ProcessedHarvesterResponse> steps = new ArrayList<>();
+    JsonArray notImported = new JsonArray();
+    List<Integer> notImportedPositions = new ArrayList<>();
+    for (JsonObject association : ordered) {
+      JsonObject stepReference = association.getJsonObject("step", new JsonObject());
+      String stepId = stepReference.getString("id", association.getString("stepId"));
+      String stepName = stepReference.getString("name", association.getString("stepName"));
+      ImportItem step = stepId != null
+          ? importedById.get(EntityType.step).get(stepId)
+          : importedByName.get(EntityType.step).get(stepName);
+      if (step != null) {
+        steps.add(new ProcessedHarvesterResponseGetById(step.record));
+      } else {
+        steps.add(null);
+        notImported.add(association);
+        notImportedPositions.add(steps.size() - 1);
+      }
+    }
+    if (notImported.isEmpty()) {
+      return Future.succeededFuture(steps);
+    }
+    return legacyStorage.lookUpSteps(notImported).map(lookedUp -> {
+      for (int i = 0; i < lookedUp.size(); i++) {
+        steps.set(notImportedPositions.get(i), lookedUp.get(i));
+      }
+      return steps;
+    });
+  }
+
+  private static int position(JsonObject association) {
+    Object position = association.getValue("position");
+    if (position == null) {
+      return Integer.MAX_VALUE;
+    }
+    try {
+      return Integer.parseInt(position.toString());
+    } catch (NumberFormatException e) {
+      return Integer.MAX_VALUE;
+    }
+  }
+
+  /**
+   * Resolves the storage and transformation of a harvestable from the import if possible, or
+   * else from the Harvester, and sets the defaults that a POST through the API would set.
+   */
+  private Future<ProcessedHarvesterResponsePost> resolveHarvestableReferences(ImportItem item) {
+    JsonObject harvestable = item.record;
+    JsonObject storage = harvestable.getJsonObject("storage");
+    JsonObject transformation = harvestable.getJsonObject("transformation");
+    if (storage == null || transformation == null) {
+      return Future.succeededFuture(new ProcessedHarvesterResponsePost(422,
+          "A harvestable must have a storage and a transformation"));
+    }
+    final boolean resolved = resolveInImport(storage, EntityType.storage)
+        & resolveInImport(transformation, EntityType.transformation);
+    if (!transformation.containsKey("entityType")) {
+      transformation.put("entityType", "basicTransformation");
+    }
+    if (!storage.containsKey("entityType")) {
+      storage.put("entityType", "inventoryStorageEntity");
+    }
+    harvestable.put("lastUpdated", DateTimeFormatter.ISO_INSTANT.format(Instant.now()));
+    if (resolved) {
+      return Future.succeededFuture(new ProcessedHarvesterResponsePost(200, "References OK"));
+    }
+    return legacyStorage.resolveReferencedEntities(HARVESTER_HARVESTABLES_PATH, harvestable);
+  }
+
+  /**
+   * Sets the ID of a reference by name to a record of the import.
+   *
+   * @return true if the reference has an ID
+   */
+  private boolean resolveInImport(JsonObject reference, EntityType type) {
+    String id = reference.getString("id");
+    if (id != null && !id.isEmpty()) {
+      return true;
+    }
+    ImportItem imported = importedByName.get(type).get(reference.getString("name"));
+    if (imported != null) {
+      reference.put("id", imported.record.getString("id"));
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Writes the outcome of a line.
+   *
+   * @return a future that completes when the stream has capacity for more
+   */
+  private Future<Void> report(WriteStream<Buffer> out, JsonObject result) {
+    out.write(Buffer.buffer(result.encode() + "\n"));
+    return whenWritable(out);
+  }
+
+  private static class ImportItem {
+    private final int line;
+    private final List<ImportItem> attachedItems = new ArrayList<>();
+    private EntityType type;
+    private JsonObject record;
+    private String error;
+
+    ImportItem(int line) {
+      this.line = line;
+    }
+
+    static ImportItem parse(int line, String text) {
+      ImportItem item = new ImportItem(line);
+      try {
+        JsonObject json = new JsonObject(text);
+        item.type = EntityType.valueOf(json.getString("entityType", ""));
+        item.record = json.getJsonObject("record");
+        if (item.record == null) {
+          item.error = "No record on line";
+        }
+      } catch (DecodeException | ClassCastException e) {
+        item.error = "Could not parse line as JSON: " + e.getMessage();
+      } catch (IllegalArgumentException e) {
+        item.error = "Unknown entity type, expected one of storage, step, transformation, tsa or "
+            + "harvestable";
+      }
+      return item;
+    }
+
+    JsonObject result(int status, String message) {
+      JsonObject result = new JsonObject()
+          .put("line", line)
+          .put("status", status)
+          .put("message", message);
+      if (type != null) {
+        result.put("entityType", type.name());
+      }
+      if (record != null) {
+        result.put("id", record.getString("id"));
+        result.put("name", record.getString("name"));
+      }
+      return result;
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package org.folio.harvesteradmin.dataaccess;
+
+import io.vertx.core.json.JsonObject;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.folio.harvesteradmin.dataaccess.statics.LegacyServiceConfig;
+
+/**
+ * Per-tenant cache of Harvester config records (harvestables, storages, transformations, steps)
+ * by Harvester path and ID, for the look-ups that the module does before acting on a record.
+ * <br/><br/>
+ * Entries expire after a configured time to live, and the least recently used entries are evicted
+ * when a tenant's cache is full. Since records embed details of the records they reference, any
+ * write to the Harvester on behalf of a tenant clears that tenant's entire cache, both when the
+ * write is sent and when the Harvester responds. Each clearing starts a new generation of the
+ * cache, and a record is only cached if no clearing happened while it was looked up, so that a
+ * look-up that overlaps a write doesn't put the record back as it was before the write. Records
+ * are copied in and out of the cache, so that callers can't modify cached records.
+ * <br/><br/>
+ * The cache is held per module instance; writes through other instances are not seen here until
+ * the entry expires.
+ */
+public class ConfigRecordCache {
+
+  private static final Map<String, TenantCache> caches = new HashMap<>();
+  private static final AtomicLong hits = new AtomicLong();
+  private static final AtomicLong misses = new AtomicLong();
+
+  private ConfigRecordCache() {
+  }
+
+  /**
+   * Gets a copy of a cached record, or null if the record is not cached or has expired.
+   */
+  public static JsonObject get(String tenant, String harvesterPath, String id) {
+    if (!enabled()) {
+      return null;
+    }
+    JsonObject cached = tenantCache(tenant).get(harvesterPath + "/" + id);
+    if (cached == null) {
+      misses.incrementAndGet();
+      return null;
+    }
+    hits.incrementAndGet();
+    return cached;
+  }
+
+  /**
+   * Gets the current generation of the tenant's cache, to pass to {@link #put} when the record
+   * that was looked up arrives.
+   */
+  public static long generation(String tenant) {
+    return enabled() ? tenantCache(tenant).generation() : 0;
+  }
+
+  /**
+   * Caches a copy of a record, unless the tenant's cache was cleared since the given generation.
+   */
+  public static void put(String tenant, String harvesterPath, String id, JsonObject record,
+                         long generation) {
+    if (enabled() && id != null && record != null) {
+      tenantCache(tenant).put(harvesterPath + "/" + id, record, generation);
+    }
+  }
+
+  /**
+   * Clears the cached records of a tenant and starts a new generation.
+   */
+  public static void invalidate(String tenant) {
+    if (enabled()) {
+      tenantCache(tenant).clear();
+    }
+  }
+
+  public static long hits() {
+    return hits.get();
+  }
+
+  public static long misses() {
+    return misses.get();
+  }
+
+  private static boolean enabled() {
+    return LegacyServiceConfig.configCacheTtlSeconds > 0;
+  }
+
+  private static TenantCache tenantCache(String tenant) {
+    synchronized (caches) {
+      return caches.computeIfAbsent(tenant, t -> new TenantCache(
+          LegacyServiceConfig.configCacheMaxEntries,
+          LegacyServiceConfig.configCacheTtlSeconds * 1000L));
+    }
+  }
+
+  private static class TenantCache {
+    private final long timeToLiveMillis;
+    private final LinkedHashMap<String, Entry> entries;
+    private long generation;
+
+    TenantCache(int maxEntries, long timeToLiveMillis) {
+      this.timeToLiveMillis = timeToLiveMillis;
+      this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+          return size() > maxEntries;
+        }
+      };
+    }
+
+    synchronized JsonObject get(String key) {
+      Entry entry = entries.get(key);
+      if (entry == null) {
+        return null;
+      }
+      if (entry.expires < System.currentTimeMillis()) {
+        entries.remove(key);
+        return null;
+      }
+      return entry.record.copy();
+    }
+
+    synchronized void put(String key, JsonObject record, long lookUpGeneration) {
+      if (lookUpGeneration == generation) {
+        entries.put(key, new Entry(record.copy(), System.currentTimeMillis() + timeToLiveMillis));
+      }
+    }
+
+    synchronized long generation() {
+      return generation;
+    }
+
+    synchronized void clear() {
+      entries.clear();
+      generation++;
+    }
+  }
+
+  private static class Entry {
+    private final JsonObject record;
+    private final long expires;
+
+    Entry(JsonObject record, long expires) {
+      this.record = record;
+      this.expires = expires;
+    }
+  }
+}
@@ -0,0 +1,189 @@
+package org.folio.harvesteradmin.dataaccess;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Runs an asynchronous request for each item of a list, with at most a given number of requests
+ * in flight at any time. Failed requests are retried with exponential backoff, and requests
+ * that still fail after that are left out of the result rather than failing the whole run.
+ * A pipeline instance is meant for a single run.
+ *
+ * @param <T> the type of the items to make requests for
+ * @param <R> the type of the results of the requests
+ */
+public class FetchPipeline<T, R> {
+
+  private static final Logger logger = LogManager.getLogger(FetchPipeline.class);
+
+  private final Vertx vertx;
+  private final String label;
+  private final int maxInFlight;
+  private final int maxRetries;
+  private final long backoffMillis;
+
+  private List<T> items;
+  private List<R> results;
+  private Function<T, Future<R>> request;
+  private BiConsumer<Integer, R> resultHandler;
+  private Promise<Outcome<R>> promise;
+  private int next;
+  private int inFlight;
+  private int completed;
+  private int failures;
+  private int retries;
+  private long started;
+
+  /**
+   * Constructor.
+   *
+   * @param vertx         Vert.x instance used for backoff timers
+   * @param label         text identifying the fetch in logs
+   * @param maxInFlight   maximum number of requests running at the same time
+   * @param maxRetries    how many times to retry a failed request
+   * @param backoffMillis delay before the first retry, doubled for each subsequent retry
+   */
+  public FetchPipeline(Vertx vertx, String label, int maxInFlight, int maxRetries,
+                       long backoffMillis) {
+    this.vertx = vertx;
+    this.label = label;
+    this.maxInFlight = Math.max(1, maxInFlight);
+    this.maxRetries = Math.max(0, maxRetries);
+    this.backoffMillis = Math.max(1, backoffMillis);
+  }
+
+  /**
+   * Runs the request for each of the items.
+   *
+   * @param items         the items to run the requests for
+   * @param request       makes the request for an item. A failed future causes a retry, a null
+   *                      result means that there is nothing to include for the item.
+   * @param resultHandler optional, receives each non-null result as it arrives, together with the
+   *                      position of its item in the list
+   * @return the outcome, with results in the order of the items
+   */
+  public Future<Outcome<R>> run(List<T> items, Function<T, Future<R>> request,
+                                BiConsumer<Integer, R> resultHandler) {
+    this.items = items;
+    this.request = request;
+    this.resultHandler = resultHandler;
+    this.results = new ArrayList<>(Collections.nCopies(items.size(), null));
+    this.promise = Promise.promise();
+    started = System.currentTimeMillis();
+    if (items.isEmpty()) {
+      finish();
+    } else {
+      fill();
+    }
+    return promise.future();
+  }
+
+  private void fill() {
+    while (inFlight < maxInFlight && next < items.size()) {
+      int index = next++;
+      inFlight++;
+      attempt(index, 0);
+    }
+  }
+
+  private void attempt(int index, int attemptNo) {
+    Future<R> future;
+    try {
+      future = request.apply(items.get(index));
+    } catch (RuntimeException e) {
+      future = Future.failedFuture(e);
+    }
+    future.onComplete(ar -> {
+      if (ar.succeeded()) {
+        R result = ar.result();
+        results.set(index, result);
+        if (result != null && resultHandler != null) {
+          resultHandler.accept(index, result);
+        }
+        done();
+      } else if (attemptNo < maxRetries) {
+        retries++;
+        long delay = backoffMillis << attemptNo;
+        logger.debug(label + ": request " + index + " failed (" + ar.cause().getMessage()
+            + "), retrying in " + delay + " ms");
+        vertx.setTimer(delay, timer -> attempt(index, attemptNo + 1));
+      } else {
+        failures++;
+        logger.warn(label + ": giving up on request " + index + " after " + (attemptNo + 1)
+            + " attempts: " + ar.cause().getMessage());
+        done();
+      }
+    });
+  }
+
+  private void done() {
+    inFlight--;
+    completed++;
+    if (completed == items.size()) {
+      finish();
+    } else {
+      fill();
+    }
+  }
+
+  private void finish() {
+    long elapsed = System.currentTimeMillis() - started;
+    List<R> found = new ArrayList<>();
+    for (R result : results) {
+      if (result != null) {
+        found.add(result);
+      }
+    }
+    Outcome<R> outcome = new Outcome<>(found, failures, retries, elapsed);
+    logger.info(label + ": " + outcome);
+    promise.complete(outcome);
+  }
+
+  /**
+   * The results of a run of the pipeline, with statistics.
+   */
+  public static class Outcome<R> {
+    private final List<R> results;
+    private final int failures;
+    private final int retries;
+    private final long elapsedMillis;
+
+    Outcome(List<R> results, int failures, int retries, long elapsedMillis) {
+      this.results = results;
+      this.failures = failures;
+      this.retries = retries;
+      this.elapsedMillis = elapsedMillis;
+    }
+
+    public List<R> results() {
+      return results;
+    }
+
+    public int failures() {
+      return failures;
+    }
+
+    public int retries() {
+      return retries;
+    }
+
+    public long elapsedMillis() {
+      return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+      return "fetched " + results.size() + " in " + elapsedMillis + " ms ("
+          + (results.isEmpty() ? 0 : elapsedMillis / results.size()) + " ms/item), "
+          + failures + " failed, " + retries + " retries";
+    }
+  }
+}
@@ -0,0 +1,158 @@
+package org.folio.harvesteradmin.dataaccess;
+
+import static org.folio.harvesteradmin.dataaccess.statics.ApiPaths.HARVESTER_HARVESTABLES_PATH;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.harvesteradmin.dataaccess.statics.LegacyServiceConfig;
+
+/**
+ * Watches the status of a harvestable for any number of subscribers, by polling the Harvester
+ * for the harvestable and passing on the status properties whenever they change. There is one
+ * poller per tenant and harvestable, started by the first subscriber and stopped when the last one
+ * leaves, so that the Harvester is polled once per interval no matter how many clients are
+ * watching.
+ * <br/><br/>
+ * Subscribers get events of type <code>status</code> with the status properties, and of type
+ * <code>error</code> if the harvestable could not be retrieved. New subscribers first get the
+ * last event.
+ */
+public class HarvestableStatusPoller {
+
+  public static final String STATUS = "status";
+  public static final String ERROR = "error";
+
+  private static final Logger logger = LogManager.getLogger(HarvestableStatusPoller.class);
+  private static final List<String> STATUS_PROPERTIES = Arrays.asList(
+      "id", "name", "currentStatus", "amountHarvested", "message", "lastHarvestStarted",
+      "lastHarvestFinished", "nextHarvestSchedule", "enabled");
+  private static final Map<String, HarvestableStatusPoller> pollers = new ConcurrentHashMap<>();
+
+  private final Vertx vertx;
+  private final String key;
+  private final String harvestableId;
+  private final LegacyHarvesterStorage legacyStorage;
+  private final List<BiConsumer<String, JsonObject>> subscribers = new ArrayList<>();
+  private String lastEvent;
+  private JsonObject lastData;
+  private long timer = -1;
+  private boolean stopped;
+
+  private HarvestableStatusPoller(Vertx vertx, String tenant, String harvestableId,
+                                  JsonObject harvestable) {
+    this.vertx = vertx;
+    this.key = tenant + ":" + harvestableId;
+    this.harvestableId = harvestableId;
+    this.legacyStorage = new LegacyHarvesterStorage(vertx, tenant);
+    this.lastEvent = STATUS;
+    this.lastData = status(harvestable);
+  }
+
+  /**
+   * Subscribes to changes in the status of a harvestable.
+   *
+   * @param vertx         Vert.x instance, for requests to the Harvester and the poll timer
+   * @param tenant        the tenant
+   * @param harvestableId ID of the harvestable
+   * @param harvestable   the harvestable as just retrieved, to start from if it's not already
+   *                      being watched
+   * @param subscriber    receives the event type and the status properties or error message
+   * @return ends the subscription
+   */
+  public static Runnable subscribe(Vertx vertx, String tenant, String harvestableId,
+                                   JsonObject harvestable,
+                                   BiConsumer<String, JsonObject> subscriber) {
+    HarvestableStatusPoller poller = pollers.compute(tenant + ":" + harvestableId,
+        (key, existing) -> {
+          HarvestableStatusPoller current = existing == null
+              ? new HarvestableStatusPoller(vertx, tenant, harvestableId, harvestable) : existing;
+          current.add(subscriber);
+          return current;
+        });
+    return () -> pollers.computeIfPresent(poller.key, (key, current) ->
+        current.remove(subscriber) ? current : null);
+  }
+
+  /**
+   * Gets the status properties of a harvestable.
+   */
+  public static JsonObject status(JsonObject harvestable) {
+    JsonObject status = new JsonObject();
+    for (String property : STATUS_PROPERTIES) {
+      if (harvestable.containsKey(property)) {
+        status.put(property, harvestable.getValue(property));
+      }
+    }
+    return status;
+  }
+
+  private synchronized void add(BiConsumer<String, JsonObject> subscriber) {
+    subscribers.add(subscriber);
+    subscriber.accept(lastEvent, lastData);
+    if (subscribers.size() == 1) {
+      logger.info("Watching status of harvestable " + key);
+      schedulePoll();
+    }
+  }
+
+  /**
+   * Removes a subscriber, and stops polling if it was the last.
+   *
+   * @return true if there are subscribers left
+   */
+  private synchronized boolean remove(BiConsumer<String, JsonObject> subscriber) {
+    subscribers.remove(subscriber);
+    if (subscribers.isEmpty()) {
+      logger.info("Stopped watching status of harvestable " + key);
+      stopped = true;
+      vertx.cancelTimer(timer);
+      return false;
+    }
+    return true;
+  }
+
+  private void schedulePoll() {
+    timer = vertx.setTimer(LegacyServiceConfig.statusPollIntervalMs, id -> poll());
+  }
+
+  private void poll() {
+    legacyStorage.getConfigRecordById(HARVESTER_HARVESTABLES_PATH, harvestableId)
+        .onComplete(lookUp -> {
+          synchronized (this) {
+            if (stopped) {
+              return;
+            }
+            if (lookUp.succeeded() && lookUp.result().wasOK()) {
+              publish(STATUS, status(lookUp.result().jsonObject()));
+            } else {
+              String message = lookUp.succeeded()
+                  ? lookUp.result().statusCode() + " " + lookUp.result().errorMessage()
+                  : lookUp.cause().getMessage();
+              publish(ERROR, new JsonObject().put("message",
+                  "Could not get harvestable " + harvestableId + ": " + message));
+            }
+            schedulePoll();
+          }
+        });
+  }
+
+  private void publish(String event, JsonObject data) {
+    if (event.equals(lastEvent) && data.equals(lastData)) {
+      return;
+    }
+    lastEvent = event;
+    lastData = data;
+    // copied, since a subscriber may leave when passed the event
+    for (BiConsumer<String, JsonObject> subscriber : new ArrayList<>(subscribers)) {
+      subscriber.accept(event, data);
+    }
+  }
+}
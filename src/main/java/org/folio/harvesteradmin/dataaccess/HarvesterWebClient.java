@@ -0,0 +1,45 @@
+package org.folio.harvesteradmin.dataaccess;
+
+import io.vertx.core.Vertx;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.WebClientOptions;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.harvesteradmin.dataaccess.statics.LegacyServiceConfig;
+
+/**
+ * Holds one pooled web client per Vert.x instance for all requests to the legacy Harvester, so
+ * that connections are kept alive and reused across requests rather than set up per request.
+ */
+public class HarvesterWebClient {
+
+  private static final Logger logger = LogManager.getLogger(HarvesterWebClient.class);
+  private static final Map<Vertx, WebClient> clients =
+      Collections.synchronizedMap(new WeakHashMap<>());
+
+  private HarvesterWebClient() {
+  }
+
+  /**
+   * Gets the shared Harvester client of the given Vert.x instance, creating it on first use.
+   */
+  public static WebClient get(Vertx vertx) {
+    return clients.computeIfAbsent(vertx, HarvesterWebClient::create);
+  }
+
+  private static WebClient create(Vertx vertx) {
+    WebClientOptions options = new WebClientOptions()
+        .setKeepAlive(true)
+        .setKeepAliveTimeout(LegacyServiceConfig.harvesterClientIdleTimeout)
+        .setMaxPoolSize(LegacyServiceConfig.harvesterClientMaxPoolSize)
+        .setPipelining(LegacyServiceConfig.harvesterClientPipelining);
+    logger.info("Creating Harvester client with max pool size " + options.getMaxPoolSize()
+        + ", keep-alive timeout " + options.getKeepAliveTimeout() + "s, pipelining "
+        + options.isPipelining());
+    return WebClient.create(vertx, options);
+  }
+
+}
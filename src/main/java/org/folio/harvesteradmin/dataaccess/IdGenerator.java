@@ -0,0 +1,78 @@
+package org.folio.harvesteradmin.dataaccess;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.harvesteradmin.dataaccess.statics.LegacyServiceConfig;
+
+/**
+ * Generates the 15-digit IDs of Harvester config records.
+ * <br/><br/>
+ * An ID is made up of a node discriminator, which sets the first four digits, and a sequence
+ * number of eleven digits. The node is either configured or picked at random on start-up, and so
+ * is the point in the sequence to start from, so that different nodes, and the same node after a
+ * restart, are unlikely to hand out the same IDs. Within a node, IDs are never repeated.
+ * <br/><br/>
+ * The sequence is handed out in blocks, by a lock-free counter, and each thread, ie each verticle's
+ * event loop, takes its IDs from its own block without synchronization.
+ */
+public class IdGenerator {
+
+  private static final Logger logger = LogManager.getLogger(IdGenerator.class);
+  private static final long MIN_ID = 100000000000000L;
+  private static final long SEQUENCE_SPACE = 100000000000L;
+  private static final int NODES = 9000;
+  private static final int BLOCK_SIZE = 1000;
+  private static final long node = pickNode();
+  private static final AtomicLong nextBlock =
+      new AtomicLong(ThreadLocalRandom.current().nextLong(SEQUENCE_SPACE));
+  private static final ThreadLocal<Block> blocks = ThreadLocal.withInitial(Block::new);
+
+  private IdGenerator() {
+  }
+
+  private static long pickNode() {
+    int configured = LegacyServiceConfig.idGeneratorNode;
+    long picked = configured >= 0 && configured < NODES
+        ? configured : ThreadLocalRandom.current().nextInt(NODES);
+    logger.info("Generating IDs for config records as node " + picked);
+    return picked;
+  }
+
+  /**
+   * Gets the next ID.
+   */
+  public static String nextId() {
+    return Long.toString(blocks.get().next());
+  }
+
+  /**
+   * Gets a number of consecutive IDs, reserved in one step.
+   */
+  public static LongStream nextIds(int count) {
+    long first = nextBlock.getAndAdd(count);
+    return LongStream.range(first, first + count).map(IdGenerator::toId);
+  }
+
+  private static long toId(long sequence) {
+    return MIN_ID + node * SEQUENCE_SPACE + Math.floorMod(sequence, SEQUENCE_SPACE);
+  }
+
+  /**
+   * A block of the sequence, used by one thread only.
+   */
+  private static class Block {
+    private long next;
+    private long end;
+
+    long next() {
+      if (next == end) {
+        next = nextBlock.getAndAdd(BLOCK_SIZE);
+        end = next + BLOCK_SIZE;
+      }
+      return toId(next++);
+    }
+  }
+}
@@ -7,9 +7,9 @@ import static org.folio.okapi.common.HttpResponse.responseText;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.TimeZone;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 
 public class JobLauncher extends LegacyHarvesterStorage {
   private static final String PROP_NAME = "name";
@@ -22,16 +22,14 @@ public class JobLauncher extends LegacyHarvesterStorage {
   private static final int BAD_REQUEST = 400;
   private static final int OK = 200;
 
-  private static SimpleDateFormat dateFormat;
+  private static final DateTimeFormatter dateFormat =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
 
   /**
    * Constructor.
    */
   public JobLauncher(Vertx vertx, String tenant) {
     super(vertx, tenant);
-
-    dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-    dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
   }
 
   /**
@@ -54,7 +52,7 @@ public class JobLauncher extends LegacyHarvesterStorage {
         } else if (lookUp.result().wasOK()) {
           JsonObject harvestConfig = lookUp.result().jsonObject().copy();
           harvestConfig.put(PROP_HARVEST_IMMEDIATELY, TRUE);
-          harvestConfig.put(PROP_LAST_UPDATED, dateFormat.format(new Date()));
+          harvestConfig.put(PROP_LAST_UPDATED, dateFormat.format(Instant.now()));
           putConfigRecord(routingContext, HARVESTER_HARVESTABLES_PATH, harvestConfig,
               harvestableId).onComplete(putResponse -> {
                 if (putResponse.succeeded()) {
@@ -99,7 +97,7 @@ public class JobLauncher extends LegacyHarvesterStorage {
                   .jsonObject().getString("name"));
         } else if (lookUp.result().wasOK()) {
           JsonObject harvestConfig = lookUp.result().jsonObject().copy();
-          harvestConfig.put(PROP_LAST_UPDATED, dateFormat.format(new Date()));
+          harvestConfig.put(PROP_LAST_UPDATED, dateFormat.format(Instant.now()));
           putConfigRecord(routingContext, HARVESTER_HARVESTABLES_PATH, harvestConfig,
               harvestableId).onComplete(putResponse -> {
                 if (putResponse.succeeded()) {
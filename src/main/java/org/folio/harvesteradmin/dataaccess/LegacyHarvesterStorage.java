@@ -14,6 +14,8 @@ import static org.folio.harvesteradmin.dataaccess.statics.RequestParameters.cros
 import static org.folio.harvesteradmin.dataaccess.statics.RequestParameters.supportedGetRequestParameters;
 import static org.folio.okapi.common.HttpResponse.responseText;
 
+import io.vertx.core.AsyncResult;
+import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
@@ -21,31 +23,37 @@ import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.WriteStream;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.client.HttpRequest;
 import io.vertx.ext.web.client.HttpResponse;
 import io.vertx.ext.web.client.WebClient;
-import java.io.BufferedReader;
+import io.vertx.ext.web.client.predicate.ErrorConverter;
+import io.vertx.ext.web.client.predicate.ResponsePredicate;
+import io.vertx.ext.web.client.predicate.ResponsePredicateResult;
+import io.vertx.ext.web.codec.BodyCodec;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.StringReader;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.TransformerException;
+import javax.xml.stream.XMLStreamException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.folio.harvesteradmin.dataaccess.dataconverters.JsonToHarvesterXml;
+import org.folio.harvesteradmin.dataaccess.dataconverters.XmlEngine;
 import org.folio.harvesteradmin.dataaccess.responsehandlers.ProcessedHarvesterResponse;
 import org.folio.harvesteradmin.dataaccess.responsehandlers.ProcessedHarvesterResponseDelete;
 import org.folio.harvesteradmin.dataaccess.responsehandlers.ProcessedHarvesterResponseGet;
@@ -56,7 +64,7 @@ import org.folio.harvesteradmin.dataaccess.responsehandlers.ProcessedHarvesterRe
 import org.folio.harvesteradmin.dataaccess.statics.ApiPaths;
 import org.folio.harvesteradmin.dataaccess.statics.EntityRootNames;
 import org.folio.harvesteradmin.dataaccess.statics.LegacyServiceConfig;
-import org.folio.okapi.common.GenericCompositeFuture;
+import org.folio.harvesteradmin.metrics.Metrics;
 import org.xml.sax.SAXException;
 
 
@@ -73,25 +81,20 @@ public class LegacyHarvesterStorage {
   public static final int INTERNAL_SERVER_ERROR = 500;
   public static final int NO_CONTENT = 204;
   public static final int CREATED = 201;
+  private static final int CONFIG_RECORDS_PAGE_SIZE = 1000;
   protected final WebClient restClient;
+  protected final Vertx vertx;
 
   private static final DateTimeFormatter iso_instant = DateTimeFormatter.ISO_INSTANT;
   private static final Logger logger = LogManager.getLogger(LegacyHarvesterStorage.class);
 
-  private static final Iterator<Long> fifteenDigitLongs =
-      new Random().longs(100000000000000L, 999999999999999L).iterator();
-
-  public LegacyHarvesterStorage(Vertx vertx, String tenant) {
-    this.tenant = tenant;
-    restClient = WebClient.create(vertx);
-  }
-
   /**
-   * Primary key generator.
-   * @return random 12 digit number as string.
+   * Constructor.
    */
-  public static String getRandomFifteenDigitString() {
-    return Long.toString(fifteenDigitLongs.next());
+  public LegacyHarvesterStorage(Vertx vertx, String tenant) {
+    this.tenant = tenant;
+    this.vertx = vertx;
+    restClient = HarvesterWebClient.get(vertx);
   }
 
   /**
@@ -113,12 +116,42 @@ public class LegacyHarvesterStorage {
     String pathAndQuery = path
         + ((query == null || query.isEmpty()) ? aclFilter(tenant)
         : (query.startsWith("?") ? query : "?" + query) + andAclFilter(tenant));
-    harvesterGetRequest(pathAndQuery)
-        .send(ar ->
-            promise.complete(new ProcessedHarvesterResponseGet(ar, path, query)));
+    harvesterGetRequest(pathAndQuery).send(ar ->
+        XmlConversionExecutor.convert(vertx, bodySize(ar),
+            () -> new ProcessedHarvesterResponseGet(ar, path, query))
+            .onComplete(promise));
     return promise.future();
   }
 
+  /**
+   * Gets the brief records of all config records at a Harvester path, page by page.
+   */
+  public Future<List<JsonObject>> getAllConfigRecords(String harvesterPath) {
+    return getAllConfigRecords(harvesterPath, 0, new ArrayList<>());
+  }
+
+  private Future<List<JsonObject>> getAllConfigRecords(
+      String harvesterPath, int offset, List<JsonObject> records) {
+    Map<String, String> paging = new HashMap<>();
+    paging.put("offset", Integer.toString(offset));
+    paging.put("limit", Integer.toString(CONFIG_RECORDS_PAGE_SIZE));
+    return getConfigRecords(harvesterPath, buildQueryString(paging)).compose(page -> {
+      if (!page.wasOK()) {
+        return Future.failedFuture(page.errorMessage());
+      }
+      JsonArray pageOfRecords = page.jsonObject()
+          .getJsonArray(mapToNameOfArrayOfEntities(harvesterPath), new JsonArray());
+      for (Object arrayObject : pageOfRecords) {
+        records.add((JsonObject) arrayObject);
+      }
+      Integer totalRecords = page.jsonObject().getInteger("totalRecords");
+      if (pageOfRecords.isEmpty() || totalRecords == null || records.size() >= totalRecords) {
+        return Future.succeededFuture(records);
+      }
+      return getAllConfigRecords(harvesterPath, offset + pageOfRecords.size(), records);
+    });
+  }
+
   /**
    * Gets config record based on harvester path and id parameter from context.
    */
@@ -135,13 +168,38 @@ public class LegacyHarvesterStorage {
       String harvesterPath, String id) {
     Promise<ProcessedHarvesterResponseGetById> promise = Promise.promise();
     logger.debug("GET " + harvesterPath + "/" + id);
-    harvesterGetRequest(harvesterPath + "/" + id).send(ar -> promise.complete(
-        new ProcessedHarvesterResponseGetById(ar, harvesterPath, id, tenant)));
+    harvesterGetRequest(harvesterPath + "/" + id).send(ar ->
+        XmlConversionExecutor.convert(vertx, bodySize(ar),
+            () -> new ProcessedHarvesterResponseGetById(ar, harvesterPath, id, tenant))
+            .onComplete(promise));
     return promise.future();
   }
 
+  /**
+   * Looks up a config record by harvester path and id, from the tenant's cache if possible.
+   * For checking the existence of a record, or resolving references to it, before acting on it.
+   */
+  public Future<ProcessedHarvesterResponseGetById> lookUpConfigRecordById(
+      String harvesterPath, String id) {
+    JsonObject cached = ConfigRecordCache.get(tenant, harvesterPath, id);
+    if (cached != null) {
+      logger.debug("Found " + harvesterPath + "/" + id + " in cache");
+      return Future.succeededFuture(new ProcessedHarvesterResponseGetById(cached));
+    }
+    long generation = ConfigRecordCache.generation(tenant);
+    return getConfigRecordById(harvesterPath, id).onSuccess(lookUp -> {
+      if (lookUp.wasOK()) {
+        ConfigRecordCache.put(tenant, harvesterPath, id, lookUp.jsonObject(), generation);
+      }
+    });
+  }
+
+  /**
+   * Gets a config record by ID, or by name if there's no ID. A record that is going to be modified
+   * and written back is read from the Harvester, others may be taken from the cache.
+   */
   private Future<ProcessedHarvesterResponse> getConfigRecordByIdOrName(
-      String harvesterPath, String id, String name) {
+      String harvesterPath, String id, String name, boolean forUpdate) {
     Promise<ProcessedHarvesterResponse> promise = Promise.promise();
     if (id == null || id.isEmpty()) {
       Map<String,String> identifierParam = Map.of("query", "name=" + name);
@@ -154,7 +212,7 @@ public class LegacyHarvesterStorage {
                   recordsJson.getJsonArray(
                       mapToNameOfArrayOfEntities(harvesterPath)).getJsonObject(0);
               String resolvedId = briefJson.getString("id");
-              getConfigRecordById(harvesterPath, resolvedId).onComplete(
+              getOrLookUpConfigRecordById(harvesterPath, resolvedId, forUpdate).onComplete(
                   recordById -> promise.complete(recordById.result()));
             } else if (recordsFoundByName == 0) {
               promise.complete(
@@ -174,128 +232,111 @@ public class LegacyHarvesterStorage {
               promise.fail("Lookup of records by name \"" + name + "\"failed: "
                   + recordsByName.getMessage()));
     } else {
-      getConfigRecordById(harvesterPath, id).onComplete(
+      getOrLookUpConfigRecordById(harvesterPath, id, forUpdate).onComplete(
           recordById -> promise.complete(recordById.result()));
       return promise.future();
     }
   }
 
+  private Future<ProcessedHarvesterResponseGetById> getOrLookUpConfigRecordById(
+      String harvesterPath, String id, boolean forUpdate) {
+    return forUpdate
+        ? getConfigRecordById(harvesterPath, id)
+        : lookUpConfigRecordById(harvesterPath, id);
+  }
+
   /**
    * Posts config record, after checking the ID, and -- if no ID provided -- for possible
-   * duplicate name, and retrieves the record for the response.
+   * duplicate name, and retrieves the record for the response. The duplicate check runs
+   * concurrently with the resolution of referenced records.
    */
   public Future<ProcessedHarvesterResponsePost> postConfigRecord(RoutingContext routingContext) {
     Promise<ProcessedHarvesterResponsePost> promise = Promise.promise();
     String harvesterPath = mapToHarvesterPath(routingContext);
     JsonObject jsonToPost = routingContext.body().asJsonObject();
-    String idInPostedRecord = jsonToPost.getString("id");
+    Future<ProcessedHarvesterResponsePost> duplicateCheck =
+        checkForDuplicate(harvesterPath, jsonToPost);
+    Future<ProcessedHarvesterResponsePost> references =
+        resolveReferencedEntities(harvesterPath, jsonToPost);
+    CompositeFuture.join(duplicateCheck, references).onComplete(checks -> {
+      if (duplicateCheck.failed()) {
+        promise.complete(new ProcessedHarvesterResponsePost(INTERNAL_SERVER_ERROR,
+            "Could not check for duplicates before POST to " + harvesterPath + ": "
+                + duplicateCheck.cause().getMessage()));
+      } else if (!duplicateCheck.result().wasOK()) {
+        promise.complete(duplicateCheck.result());
+      } else {
+        doPostConfigRecord(routingContext, jsonToPost, references)
+            .onComplete(post -> promise.complete(post.result()));
+      }
+    });
+    return promise.future();
+  }
+
+  /**
+   * Checks that the ID -- or, if no ID provided, the name -- of a record to POST is not taken.
+   */
+  private Future<ProcessedHarvesterResponsePost> checkForDuplicate(
+      String harvesterPath, JsonObject entity) {
+    String idInPostedRecord = entity.getString("id");
     if (idInPostedRecord == null) {
-      nameExistsAlready(harvesterPath,jsonToPost).onComplete(
-          exists -> {
-            if (exists.result()) {
-              promise.complete(
-                  new ProcessedHarvesterResponsePost(
-                      422,
-                      "The name '"
-                          + jsonToPost.getString("name")
-                          + "' exists already in "
-                          + harvesterPath
-                          + "."));
-            } else {
-              doPostConfigRecord(routingContext)
-                  .onComplete(post -> promise.complete(post.result()));
-            }
-          }
-      );
+      return nameExistsAlready(harvesterPath, entity).map(exists -> exists
+          ? new ProcessedHarvesterResponsePost(422,
+              "The name '" + entity.getString("name") + "' exists already in "
+                  + harvesterPath + ".")
+          : new ProcessedHarvesterResponsePost(200, "Name not taken"));
     } else {
-      getConfigRecordById(routingContext, idInPostedRecord)
-          .onComplete(lookUp -> {
-            if (lookUp.succeeded()) {
-              if (lookUp.result().wasOK()) {
-                promise.complete(
-                    new ProcessedHarvesterResponsePost(
-                        422,
-                        harvesterPath + "/" + idInPostedRecord + " already exists."));
-              } else if (lookUp.result().wasNotFound()) {
-                doPostConfigRecord(routingContext)
-                    .onComplete(post -> promise.complete(post.result()));
-              } else {
-                promise.complete(new ProcessedHarvesterResponsePost(lookUp.result().statusCode(),
-                    "There was an error ("
-                        + lookUp.result().statusCode() + ") looking up "
-                        + harvesterPath + "/" + idInPostedRecord
-                        + " before POST: "
-                        + lookUp.result().errorMessage()));
-              }
-            }
-          });
+      return getConfigRecordById(harvesterPath, idInPostedRecord).map(lookUp -> {
+        if (lookUp.wasOK()) {
+          return new ProcessedHarvesterResponsePost(
+              422, harvesterPath + "/" + idInPostedRecord + " already exists.");
+        } else if (lookUp.wasNotFound()) {
+          return new ProcessedHarvesterResponsePost(200, "ID not taken");
+        } else {
+          return new ProcessedHarvesterResponsePost(lookUp.statusCode(),
+              "There was an error (" + lookUp.statusCode() + ") looking up "
+                  + harvesterPath + "/" + idInPostedRecord + " before POST: "
+                  + lookUp.errorMessage());
+        }
+      });
     }
-    return promise.future();
   }
 
   /**
    * Checks for referential constraints, and possibly mutates the JSON in argument `entity`.
    * If the reference is by name, the method will update
-   * `entity` with the id of the record with that name.
+   * `entity` with the id of the record with that name. The storage and the transformation
+   * are looked up concurrently.
    */
   public Future<ProcessedHarvesterResponsePost> resolveReferencedEntities(
       String api, JsonObject entity) {
     Promise<ProcessedHarvesterResponsePost> promise = Promise.promise();
-    List<String> constraintViolation = new ArrayList<>();
-    List<String> fatalError = new ArrayList<>();
     if (api.contains("harvestables")) {
       // check transformation and storage
-      final String storageId = entity.getJsonObject("storage").getString("id");
-      final String transformationId = entity.getJsonObject("transformation").getString("id");
-      final String storageName = entity.getJsonObject("storage").getString("name");
-      final String transformationName = entity.getJsonObject("transformation").getString("name");
-      getConfigRecordByIdOrName(HARVESTER_STORAGES_PATH, storageId, storageName)
-          .onComplete(storage -> {
-            if (storage.succeeded()) {
-              if (storage.result().wasOK()) {
-                if (storageId == null || storageId.isEmpty()) {
-                  entity.getJsonObject("storage")
-                      .put("id", storage.result().jsonObject().getString("id"));
-                }
-              } else {
-                constraintViolation.add(
-                    "Could not resolve references: " + storage.result().errorMessage());
-              }
-            } else {
-              fatalError.add("Error looking up storage by id or name "
-                  + storage.cause().getMessage());
-            }
-            getConfigRecordByIdOrName(HARVESTER_TRANSFORMATIONS_PATH,
-                transformationId, transformationName)
-                .onComplete(transformation -> {
-                  if (transformation.succeeded()) {
-                    if (transformation.result().wasOK()) {
-                      if (transformationId == null || transformationId.isEmpty()) {
-                        entity.getJsonObject("transformation")
-                            .put("id", transformation.result().jsonObject().getString("id"));
-                      }
-                    } else {
-                      constraintViolation.add(transformation.result().errorMessage());
-
-                    }
-                    if (constraintViolation.size() > 0) {
-                      promise.complete(
-                          new ProcessedHarvesterResponsePost(422, constraintViolation.toString())
-                      );
-                    } else {
-                      promise.complete(
-                          new ProcessedHarvesterResponsePost(200, "References OK")
-                      );
-                    }
-                  } else {
-                    fatalError.add("Error looking up transformation by id or name "
-                        + transformation.cause().getMessage());
-                  }
-                });
-            if (fatalError.size() > 0) {
-              promise.complete(new ProcessedHarvesterResponsePost(500,fatalError.toString()));
-            }
-          });
+      final JsonObject storageReference = entity.getJsonObject("storage");
+      final JsonObject transformationReference = entity.getJsonObject("transformation");
+      Future<ProcessedHarvesterResponse> storage =
+          getConfigRecordByIdOrName(HARVESTER_STORAGES_PATH,
+              storageReference.getString("id"), storageReference.getString("name"), false);
+      Future<ProcessedHarvesterResponse> transformation =
+          getConfigRecordByIdOrName(HARVESTER_TRANSFORMATIONS_PATH,
+              transformationReference.getString("id"), transformationReference.getString("name"),
+              false);
+      CompositeFuture.join(storage, transformation).onComplete(lookUps -> {
+        List<String> constraintViolation = new ArrayList<>();
+        List<String> fatalError = new ArrayList<>();
+        resolveReference("storage", storage, storageReference, constraintViolation, fatalError);
+        resolveReference("transformation", transformation, transformationReference,
+            constraintViolation, fatalError);
+        if (fatalError.size() > 0) {
+          promise.complete(new ProcessedHarvesterResponsePost(500, fatalError.toString()));
+        } else if (constraintViolation.size() > 0) {
+          promise.complete(
+              new ProcessedHarvesterResponsePost(422, constraintViolation.toString()));
+        } else {
+          promise.complete(new ProcessedHarvesterResponsePost(200, "References OK"));
+        }
+      });
     } else {
       promise.complete(
           new ProcessedHarvesterResponsePost(200, "References not checked")
@@ -304,6 +345,29 @@ public class LegacyHarvesterStorage {
     return promise.future();
   }
 
+  /**
+   * Sets the ID of a reference by name from the look-up of the referenced record, or registers
+   * why the reference could not be resolved.
+   */
+  private static void resolveReference(String entityType,
+                                       Future<ProcessedHarvesterResponse> lookUp,
+                                       JsonObject reference,
+                                       List<String> constraintViolation,
+                                       List<String> fatalError) {
+    if (lookUp.failed()) {
+      fatalError.add("Error looking up " + entityType + " by id or name "
+          + lookUp.cause().getMessage());
+    } else if (lookUp.result().wasOK()) {
+      String id = reference.getString("id");
+      if (id == null || id.isEmpty()) {
+        reference.put("id", lookUp.result().jsonObject().getString("id"));
+      }
+    } else {
+      constraintViolation.add(
+          "Could not resolve references: " + lookUp.result().errorMessage());
+    }
+  }
+
   private Future<Boolean> nameExistsAlready(
       String harvesterPath, JsonObject entity) {
     Promise<Boolean> promise = Promise.promise();
@@ -316,6 +380,8 @@ public class LegacyHarvesterStorage {
           } else {
             promise.complete(false);
           }
+        } else {
+          promise.fail(records.cause());
         }
       });
     } else {
@@ -327,14 +393,15 @@ public class LegacyHarvesterStorage {
   /**
    * Posts configuration record and retrieves the persisted result for the response.
    */
-  public Future<ProcessedHarvesterResponsePost> doPostConfigRecord(RoutingContext routingContext) {
+  public Future<ProcessedHarvesterResponsePost> doPostConfigRecord(
+      RoutingContext routingContext, JsonObject jsonToPost,
+      Future<ProcessedHarvesterResponsePost> references) {
     String harvesterPath = mapToHarvesterPath(routingContext);
     if (harvesterPath.equals(HARVESTER_TRANSFORMATIONS_PATH)) {
       return doPostAndPutTransformation(routingContext);
     } else if (harvesterPath.equals(HARVESTER_TSAS_PATH)) {
       return doPostTsaPutTransformation(routingContext);
     } else {
-      JsonObject jsonToPost = routingContext.body().asJsonObject();
       if (harvesterPath.equals(HARVESTER_HARVESTABLES_PATH)) {
         jsonToPost.put("lastUpdated", iso_instant.format(Instant.now()));
         JsonObject transformationReference = jsonToPost.getJsonObject("transformation");
@@ -347,7 +414,7 @@ public class LegacyHarvesterStorage {
         }
       }
       String requestUri = routingContext.request().absoluteURI();
-      return doPostConfigRecord(requestUri, harvesterPath, jsonToPost);
+      return doPostConfigRecord(requestUri, harvesterPath, jsonToPost, references);
     }
   }
 
@@ -356,17 +423,28 @@ public class LegacyHarvesterStorage {
    */
   public Future<ProcessedHarvesterResponsePost> doPostConfigRecord(
       String requestUri, String harvesterPath, JsonObject json) {
+    return doPostConfigRecord(requestUri, harvesterPath, json,
+        resolveReferencedEntities(harvesterPath, json));
+  }
+
+  /**
+   * Posts configuration record, once its references are resolved, and retrieves the persisted
+   * result.
+   */
+  private Future<ProcessedHarvesterResponsePost> doPostConfigRecord(
+      String requestUri, String harvesterPath, JsonObject json,
+      Future<ProcessedHarvesterResponsePost> references) {
     Promise<ProcessedHarvesterResponsePost> promise = Promise.promise();
     if (!json.containsKey("id")) {
-      json.put("id", getRandomFifteenDigitString());
+      json.put("id", IdGenerator.nextId());
     }
-    resolveReferencedEntities(harvesterPath, json)
+    references
         .onComplete(result -> {
           if (result.result().wasOK()) {
             try {
-              String xml = JsonToHarvesterXml.convertToHarvesterRecord(json,
+              Buffer xml = JsonToHarvesterXml.convertToHarvesterRecord(json,
                   mapToNameOfRootOfEntity(harvesterPath), tenant);
-              harvesterPostRequest(harvesterPath).sendBuffer(Buffer.buffer(xml), ar -> {
+              harvesterPostRequest(harvesterPath).sendBuffer(xml, ar -> {
                 if (ar.succeeded()) {
                   String location = ar.result().getHeader("Location");
                   if (ar.result().statusCode() == CREATED && location != null) {
@@ -390,7 +468,7 @@ public class LegacyHarvesterStorage {
                           ar, requestUri, harvesterPath, null));
                 }
               });
-            } catch (TransformerException | ParserConfigurationException e) {
+            } catch (XMLStreamException e) {
               promise.complete(
                   new ProcessedHarvesterResponsePost(INTERNAL_SERVER_ERROR, e.getMessage()));
             }
@@ -423,7 +501,7 @@ public class LegacyHarvesterStorage {
       JsonObject jsonToPut,
       String id) {
     Promise<ProcessedHarvesterResponsePut> promisedResponse = Promise.promise();
-    getConfigRecordById(harvesterPath, id).onComplete(
+    lookUpConfigRecordById(harvesterPath, id).onComplete(
         idLookUp -> {    // going to return 404 if not found
           if (idLookUp.succeeded()) {
             if (idLookUp.result().wasNotFound()) {
@@ -433,9 +511,9 @@ public class LegacyHarvesterStorage {
               );
             } else if (idLookUp.result().wasOK()) {
               try {
-                String xml = JsonToHarvesterXml.convertToHarvesterRecord(jsonToPut,
+                Buffer xml = JsonToHarvesterXml.convertToHarvesterRecord(jsonToPut,
                     mapToNameOfRootOfEntity(harvesterPath), tenant);
-                harvesterPutRequest(harvesterPath + "/" + id).sendBuffer(Buffer.buffer(xml),
+                harvesterPutRequest(harvesterPath + "/" + id).sendBuffer(xml,
                     put -> {
                       if (put.succeeded()) {
                         promisedResponse.complete(
@@ -448,7 +526,7 @@ public class LegacyHarvesterStorage {
                                 + put.cause().getMessage()));
                       }
                     });
-              } catch (TransformerException | ParserConfigurationException e) {
+              } catch (XMLStreamException e) {
                 logger.error("Error parsing json " + jsonToPut);
 
                 promisedResponse.complete(
@@ -507,7 +585,7 @@ public class LegacyHarvesterStorage {
       String requestUri, String id, String harvesterPath) {
     Promise<ProcessedHarvesterResponseDelete> promisedResponse = Promise.promise();
     logger.debug("Looking up " + harvesterPath + "/" + id + " before attempting delete");
-    getConfigRecordById(harvesterPath, id).onComplete(
+    lookUpConfigRecordById(harvesterPath, id).onComplete(
         idLookUp -> {  // going to return 404 if not found, else 204 (no content/deleted)
           if (idLookUp.succeeded()) {
             logger.debug("Look-up of " + harvesterPath + "/" + id + " complete. Status code: "
@@ -582,111 +660,206 @@ public class LegacyHarvesterStorage {
 
 
 
+  /**
+   * Creates a transformation pipeline. Resolves all referenced steps up front, POSTs the
+   * transformation without steps, PUTs it once with all its step associations, and retrieves it
+   * for the response.
+   */
   private Future<ProcessedHarvesterResponsePost> doPostAndPutTransformation(
       RoutingContext routingContext) {
     JsonObject transformationJson = routingContext.body().asJsonObject();
     logger.debug("About to POST-then-PUT " + transformationJson.encodePrettily());
-    JsonArray stepsIdsJson =
+    JsonArray stepAssociations =
         transformationJson.containsKey("stepAssociations") ? transformationJson.getJsonArray(
             "stepAssociations").copy() : new JsonArray();
     transformationJson.remove("stepAssociations");
-    List<Future<ProcessedHarvesterResponse>> stepFutures = new ArrayList<>();
-    for (Object arrayObject : stepsIdsJson) {
-      JsonObject step = (JsonObject) arrayObject;
-      String stepId = step.containsKey("step")
-          ? step.getJsonObject("step").getString("id")
-          : step.getString("stepId");
-      String stepName = step.containsKey("step")
-          ? step.getJsonObject("step").getString("name")
-          : step.getString("stepName");
-      stepFutures.add(getConfigRecordByIdOrName(HARVESTER_STEPS_PATH, stepId, stepName));
+    if (!transformationJson.containsKey("id")) {
+      transformationJson.put("id", IdGenerator.nextId());
     }
+    String requestUri = routingContext.request().absoluteURI();
+    long started = System.currentTimeMillis();
     Promise<ProcessedHarvesterResponsePost> promise = Promise.promise();
-    GenericCompositeFuture.all(stepFutures).onComplete(steps -> {
-      if (steps.succeeded()) {
-        boolean allStepsFound = true;
-        for (int h = 0; h < steps.result().size(); h++) {
-          ProcessedHarvesterResponseGetById stepResponse = steps.result().resultAt(h);
-          if (stepResponse.statusCode() == NOT_FOUND) {
-            logger.info("Step not found: " + stepResponse.errorMessage());
-            allStepsFound = false;
-            promise.complete(new ProcessedHarvesterResponsePost(422,
-                "Referenced step not found, cannot store transformation pipeline: "
-                    + stepResponse.errorMessage()));
-            break;
-          }
-        }
-        if (allStepsFound) {
-          doPostConfigRecord(
-              routingContext.request().absoluteURI(),
-              HARVESTER_TRANSFORMATIONS_PATH,
-              transformationJson).onComplete(
-                  transformationPost -> {
-                    if (transformationPost.succeeded()
-                        && transformationPost.result().statusCode() == CREATED) {
-                      JsonObject createdTransformation = transformationPost.result().jsonObject();
-                      createdTransformation.put("stepAssociations", new JsonArray());
-                      for (int i = 0; i < steps.result().size(); i++) {
-                        ProcessedHarvesterResponseGetById stepResponse = steps.result().resultAt(i);
-                        final JsonObject stepJson = stepResponse.jsonObject();
-                        JsonObject tsaJson = new JsonObject();
-                        tsaJson.put("id", getRandomFifteenDigitString());
-                        tsaJson.put("position", Integer.toString(i + 1));
-                        tsaJson.put("step", new JsonObject());
-                        tsaJson.getJsonObject("step")
-                            .put("entityType",
-                                typeToEmbeddedTypeMap.get(stepJson.getString("type")));
-                        tsaJson.getJsonObject("step").put("id", stepJson.getString("id"));
-                        tsaJson.put("transformation", createdTransformation.getString("id"));
-                        createdTransformation.getJsonArray("stepAssociations").add(tsaJson);
-                      }
-                      putConfigRecord(
-                          routingContext,
-                          HARVESTER_TRANSFORMATIONS_PATH,
-                          createdTransformation,
-                          createdTransformation.getString("id")).onComplete(putResponse -> {
-                            if (putResponse.succeeded()) {
-                              getConfigRecordById(HARVESTER_TRANSFORMATIONS_PATH,
-                                  createdTransformation.getString("id"))
-                                  .onComplete(lookup -> {
-                                    if (lookup.succeeded()) {
-                                      promise.complete(
-                                          transformationPost.result()
-                                              .setConfirmationResponse(lookup.result().jsonObject())
-                                      );
-                                    } else {
-                                      promise.complete(
-                                          new ProcessedHarvesterResponsePost(500,
-                                          " Failed to POST (with subsequent PUT and GET) of "
-                                              + "Transformation."
-                                              + " Retrieval failed with  "
-                                              + lookup.result().errorMessage()));
-                                    }
-                                  });
-                            } else {
-                              promise.complete(
-                                  new ProcessedHarvesterResponsePost(500,
-                                  " Failed to POST (with subsequent PUT and GET) "
-                                      + "of Transformation."
-                                      + " PUT failed with "
-                                      + putResponse.result().errorMessage()));
-                            }
-                          });
-                    } else {
-                      logger.error(transformationPost.cause().getMessage());
-                    }
-                  });
-        }
-      } else {
+    lookUpSteps(stepAssociations).onComplete(steps -> {
+      final long stepsResolved = System.currentTimeMillis();
+      if (steps.failed()) {
         promise.complete(
             new ProcessedHarvesterResponsePost(500,
                 "There was a problem looking up referenced transformation steps,"
-            + " could not store the transformation pipeline " + steps.cause().getMessage()));
+                    + " could not store the transformation pipeline "
+                    + steps.cause().getMessage()));
+        return;
+      }
+      for (ProcessedHarvesterResponse stepResponse : steps.result()) {
+        if (stepResponse.wasNotFound() || stepResponse.statusCode() == 422) {
+          logger.info("Step not found: " + stepResponse.errorMessage());
+          promise.complete(new ProcessedHarvesterResponsePost(422,
+              "Referenced step not found, cannot store transformation pipeline: "
+                  + stepResponse.errorMessage()));
+          return;
+        } else if (!stepResponse.wasOK()) {
+          promise.complete(new ProcessedHarvesterResponsePost(stepResponse.statusCode(),
+              "There was a problem looking up a referenced transformation step, could not store"
+                  + " the transformation pipeline: " + stepResponse.errorMessage()));
+          return;
+        }
+      }
+      Buffer postXml;
+      try {
+        postXml = JsonToHarvesterXml.convertToHarvesterRecord(transformationJson,
+            EntityRootNames.TRANSFORMATION_ROOT_PROPERTY, tenant);
+      } catch (XMLStreamException e) {
+        promise.complete(
+            new ProcessedHarvesterResponsePost(INTERNAL_SERVER_ERROR, e.getMessage()));
+        return;
       }
+      harvesterPostRequest(HARVESTER_TRANSFORMATIONS_PATH).sendBuffer(postXml,
+          post -> {
+            final long posted = System.currentTimeMillis();
+            String location = post.succeeded() ? post.result().getHeader("Location") : null;
+            if (location == null || post.result().statusCode() != CREATED) {
+              promise.complete(new ProcessedHarvesterResponsePost(
+                  post, requestUri, HARVESTER_TRANSFORMATIONS_PATH, null));
+              return;
+            }
+            String transformationId = location.substring(location.lastIndexOf('/') + 1);
+            transformationJson.put("id", transformationId);
+            transformationJson.put("stepAssociations",
+                makeStepAssociations(transformationId, steps.result()));
+            Buffer putXml;
+            try {
+              putXml = JsonToHarvesterXml.convertToHarvesterRecord(transformationJson,
+                  EntityRootNames.TRANSFORMATION_ROOT_PROPERTY, tenant);
+            } catch (XMLStreamException e) {
+              promise.complete(
+                  new ProcessedHarvesterResponsePost(INTERNAL_SERVER_ERROR, e.getMessage()));
+              return;
+            }
+            harvesterPutRequest(HARVESTER_TRANSFORMATIONS_PATH + "/" + transformationId)
+                .sendBuffer(putXml, put -> {
+                  long putDone = System.currentTimeMillis();
+                  if (put.failed() || put.result().statusCode() != NO_CONTENT) {
+                    promise.complete(
+                        new ProcessedHarvesterResponsePost(500,
+                            " Failed to POST (with subsequent PUT and GET) "
+                                + "of Transformation."
+                                + " PUT failed with "
+                                + (put.failed() ? put.cause().getMessage()
+                                : put.result().statusCode() + " " + put.result().bodyAsString())));
+                    return;
+                  }
+                  getConfigRecordById(HARVESTER_TRANSFORMATIONS_PATH, transformationId)
+                      .onComplete(lookUp -> {
+                        logger.info("Stored transformation " + transformationId + " with "
+                            + steps.result().size() + " steps: steps resolved in "
+                            + (stepsResolved - started) + " ms, POST " + (posted - stepsResolved)
+                            + " ms, PUT " + (putDone - posted) + " ms, GET "
+                            + (System.currentTimeMillis() - putDone) + " ms");
+                        promise.complete(new ProcessedHarvesterResponsePost(
+                            post, requestUri, HARVESTER_TRANSFORMATIONS_PATH, lookUp.result()));
+                      });
+                });
+          });
     });
     return promise.future();
   }
 
+  /**
+   * Looks up the steps of a transformation pipeline, in the order of the step associations.
+   * Steps referenced by name are resolved with a single query for all the names, and each
+   * distinct step is then retrieved once, concurrently.
+   */
+  Future<List<ProcessedHarvesterResponse>> lookUpSteps(JsonArray stepAssociations) {
+    List<String> stepIds = new ArrayList<>();
+    List<String> stepNames = new ArrayList<>();
+    Set<String> namesToResolve = new LinkedHashSet<>();
+    for (Object arrayObject : stepAssociations) {
+      JsonObject tsa = (JsonObject) arrayObject;
+      JsonObject step = tsa.getJsonObject("step");
+      String stepId = step != null ? step.getString("id") : tsa.getString("stepId");
+      String stepName = step != null ? step.getString("name") : tsa.getString("stepName");
+      if ((stepId == null || stepId.isEmpty()) && stepName != null) {
+        namesToResolve.add(stepName);
+      }
+      stepIds.add(stepId);
+      stepNames.add(stepName);
+    }
+    return lookUpStepIdsByName(namesToResolve).compose(idsByName -> {
+      Map<String, Future<ProcessedHarvesterResponseGetById>> lookUpsById = new HashMap<>();
+      @SuppressWarnings("rawtypes") List<Future> steps = new ArrayList<>();
+      for (int i = 0; i < stepIds.size(); i++) {
+        String stepId = stepIds.get(i);
+        String stepName = stepNames.get(i);
+        if (stepId == null || stepId.isEmpty()) {
+          List<String> ids = idsByName.getOrDefault(stepName, Collections.emptyList());
+          if (ids.size() != 1) {
+            String message = ids.isEmpty()
+                ? "Record with name \"" + stepName + "\" not found"
+                : "Found multiple records with name \"" + stepName + "\"";
+            steps.add(Future.succeededFuture(new ProcessedHarvesterResponseGetUniqueByName(
+                new JsonObject(), 422, message, ids.size())));
+            continue;
+          }
+          stepId = ids.get(0);
+        }
+        steps.add(lookUpsById.computeIfAbsent(stepId,
+            id -> lookUpConfigRecordById(HARVESTER_STEPS_PATH, id)));
+      }
+      return CompositeFuture.all(steps).map(CompositeFuture::list);
+    });
+  }
+
+  /**
+   * Finds the IDs of steps by their names, with one query for all the names.
+   */
+  private Future<Map<String, List<String>>> lookUpStepIdsByName(Set<String> names) {
+    if (names.isEmpty()) {
+      return Future.succeededFuture(new HashMap<>());
+    }
+    String query = names.stream()
+        .map(name -> "name=\"" + name.replace("\"", "\\\"") + "\"")
+        .collect(Collectors.joining(" or "));
+    return getConfigRecords(HARVESTER_STEPS_PATH,
+        buildQueryString(Map.of("query", query, "limit", "1000")))
+        .compose(response -> {
+          if (!response.wasOK()) {
+            return Future.failedFuture(
+                "Lookup of steps by name failed: " + response.errorMessage());
+          }
+          Map<String, List<String>> idsByName = new HashMap<>();
+          JsonArray briefSteps = response.jsonObject()
+              .getJsonArray(mapToNameOfArrayOfEntities(HARVESTER_STEPS_PATH), new JsonArray());
+          for (Object arrayObject : briefSteps) {
+            JsonObject briefStep = (JsonObject) arrayObject;
+            String name = briefStep.getString("name");
+            if (names.contains(name)) {
+              idsByName.computeIfAbsent(name, key -> new ArrayList<>())
+                  .add(briefStep.getString("id"));
+            }
+          }
+          return Future.succeededFuture(idsByName);
+        });
+  }
+
+  /**
+   * Creates the step associations of a transformation, positioned in the order of the steps.
+   */
+  static JsonArray makeStepAssociations(
+      String transformationId, List<ProcessedHarvesterResponse> steps) {
+    JsonArray stepAssociations = new JsonArray();
+    for (int i = 0; i < steps.size(); i++) {
+      final JsonObject stepJson = steps.get(i).jsonObject();
+      JsonObject tsaJson = new JsonObject();
+      tsaJson.put("id", IdGenerator.nextId());
+      tsaJson.put("position", Integer.toString(i + 1));
+      tsaJson.put("step", new JsonObject()
+          .put("entityType", typeToEmbeddedTypeMap.get(stepJson.getString("type")))
+          .put("id", stepJson.getString("id")));
+      tsaJson.put("transformation", transformationId);
+      stepAssociations.add(tsaJson);
+    }
+    return stepAssociations;
+  }
+
   private Future<ProcessedHarvesterResponsePost> doPostTsaPutTransformation(
       RoutingContext routingContext) {
     JsonObject incomingTsa = routingContext.body().asJsonObject();
@@ -695,7 +868,7 @@ public class LegacyHarvesterStorage {
     String stepId = incomingTsa.getJsonObject("step").getString("id");
     String stepName = incomingTsa.getJsonObject("step").getString("name");
     Promise<ProcessedHarvesterResponsePost> promise = Promise.promise();
-    getConfigRecordByIdOrName(HARVESTER_TRANSFORMATIONS_PATH, transId, transName).onComplete(
+    getConfigRecordByIdOrName(HARVESTER_TRANSFORMATIONS_PATH, transId, transName, true).onComplete(
         theTransformation -> {
           if (theTransformation.failed()) {
             promise.complete(
@@ -710,7 +883,7 @@ public class LegacyHarvesterStorage {
                     + transId + " not found."));
           } else {
             JsonObject transformationFound = theTransformation.result().jsonObject();
-            getConfigRecordByIdOrName(HARVESTER_STEPS_PATH, stepId, stepName).onComplete(
+            getConfigRecordByIdOrName(HARVESTER_STEPS_PATH, stepId, stepName, false).onComplete(
                 theStep -> {
                   if (!theStep.result().found()) {
                     promise.complete(
@@ -742,7 +915,7 @@ public class LegacyHarvesterStorage {
                                     transformationStepAssociation));
                             try {
                               // PUT the transformation
-                              String xml =
+                              Buffer xml =
                                   JsonToHarvesterXml.convertToHarvesterRecord(
                                       transformation,
                                       EntityRootNames.TRANSFORMATION_ROOT_PROPERTY,
@@ -750,7 +923,7 @@ public class LegacyHarvesterStorage {
                               harvesterPutRequest(
                                   HARVESTER_TRANSFORMATIONS_PATH + "/"
                                       + transformationFound.getString("id"))
-                                  .sendBuffer(Buffer.buffer(xml), ar -> {
+                                  .sendBuffer(xml, ar -> {
                                     if (ar.succeeded()) {
                                       if (ar.result().statusCode() == NO_CONTENT) {
                                         promise.complete(postedTsa.result());
@@ -777,7 +950,7 @@ public class LegacyHarvesterStorage {
                                       );
                                     }
                                   });
-                            } catch (TransformerException | ParserConfigurationException xe) {
+                            } catch (XMLStreamException xe) {
                               logger.error("Error parsing json " + transformation);
                               promise.complete(
                                   new ProcessedHarvesterResponsePost(
@@ -803,12 +976,15 @@ public class LegacyHarvesterStorage {
   }
 
   /**
-   * Gets the logs for a job.
+   * Gets the date and time that the current log of a harvestable starts from: the given date, or
+   * else the start of the most recent harvest.
+   *
+   * @param id            ID of the harvestable
+   * @param fromParameter optional date and time requested by the client
+   * @return the date and time, fails if the harvestable was not found or hasn't been run
    */
-  public Future<HttpResponse<Buffer>> getJobLog(RoutingContext routingContext) {
-    Promise<HttpResponse<Buffer>> promise = Promise.promise();
-    String id = routingContext.request().getParam("id");
-    String fromParameter = routingContext.request().getParam("from");
+  public Future<String> getJobLogStart(String id, String fromParameter) {
+    Promise<String> promise = Promise.promise();
     getConfigRecordById(HARVESTER_HARVESTABLES_PATH, id).onComplete(idLookup -> {
       if (idLookup.succeeded()) {
         ProcessedHarvesterResponseGetById idLookUpResponse = idLookup.result();
@@ -822,10 +998,9 @@ public class LegacyHarvesterStorage {
                     + "Cannot retrieve logs "
                 + HARVESTER_HARVESTABLES_PATH + "/" + id);
           } else {
-            String from = fromParameter != null && !fromParameter.isEmpty()
+            promise.complete(fromParameter != null && !fromParameter.isEmpty()
                 ? fromParameter
-                : lastStarted.substring(0, 19);
-            getJobLog(id, from).onComplete(ar -> promise.complete(ar.result()));
+                : lastStarted.substring(0, 19));
           }
         } else {
           promise.fail("There was an error (" + idLookUpResponse.statusCode() + ") looking up "
@@ -840,6 +1015,34 @@ public class LegacyHarvesterStorage {
     return promise.future();
   }
 
+  /**
+   * Reads on in the current log of a harvestable from a position, getting the log from the second
+   * of the position rather than the whole log. A last line that is not yet complete is left for
+   * the next read.
+   *
+   * @param harvestableId ID of the harvestable
+   * @param position      the position to read on from
+   * @return the position at the end of the log, with the lines after the given position
+   */
+  public Future<LogTail> tailJobLog(String harvestableId, LogTail position) {
+    return getJobLog(harvestableId, position.from()).compose(response -> {
+      if (response == null || response.statusCode() != 200) {
+        return Future.failedFuture("Could not get log of harvestable " + harvestableId
+            + (response == null ? "" : ": " + response.statusCode() + " "
+            + response.bodyAsString()));
+      }
+      String log = response.bodyAsString();
+      List<String> lines = new ArrayList<>();
+      if (log != null) {
+        log.lines().forEach(lines::add);
+        if (!lines.isEmpty() && !log.endsWith("\n")) {
+          lines.remove(lines.size() - 1);
+        }
+      }
+      return Future.succeededFuture(position.readOn(lines));
+    });
+  }
+
   /**
    * Gets a job log.
    */
@@ -851,6 +1054,24 @@ public class LegacyHarvesterStorage {
     return promise.future();
   }
 
+  /**
+   * Streams a job log to a write stream, without holding the log in memory. The write stream is
+   * ended when the whole log has been read. Fails, without writing anything to the stream, if the
+   * Harvester responds with an error.
+   */
+  public Future<HttpResponse<Void>> streamJobLog(String harvestableId, String fromDate,
+                                                 WriteStream<Buffer> logStream) {
+    return harvesterGetRequest(HARVESTER_HARVESTABLES_PATH + "/" + harvestableId + "/log?from="
+        + fromDate.substring(0,Math.min(fromDate.length(),19)))
+        .expect(ResponsePredicate.create(ResponsePredicate.SC_SUCCESS,
+            ErrorConverter.createFullBody(result -> new IllegalStateException(
+                "Could not get the log of harvestable " + harvestableId + " from the Harvester ("
+                    + result.response().statusCode() + "): "
+                    + result.response().bodyAsString()))))
+        .as(BodyCodec.pipe(logStream))
+        .send();
+  }
+
   /**
    * Gets failed records.
    */
@@ -859,7 +1080,7 @@ public class LegacyHarvesterStorage {
     String id = routingContext.request().getParam("id");
     int offset = getIntOrDefault(routingContext.request().getParam("offset"),0);
     int limit = getIntOrDefault(routingContext.request().getParam("limit"),1000);
-    getConfigRecordById(HARVESTER_HARVESTABLES_PATH, id).onComplete(idLookup -> {
+    lookUpConfigRecordById(HARVESTER_HARVESTABLES_PATH, id).onComplete(idLookup -> {
       if (idLookup.succeeded()) {
         ProcessedHarvesterResponseGetById idLookUpResponse = idLookup.result();
         if (idLookup.result().wasNotFound()) {
@@ -887,35 +1108,54 @@ public class LegacyHarvesterStorage {
    */
   public Future<ProcessedHarvesterResponseGet> getFailedRecords(
       String harvestableId, int offset, int limit) {
-    Promise<ProcessedHarvesterResponseGet> promise = Promise.promise();
-    harvesterGetRequest(HARVESTER_HARVESTABLES_PATH + "/" + harvestableId + "/failed-records")
-        .send(ar -> {
-          ProcessedHarvesterResponseGet listResponse =
-              new ProcessedHarvesterResponseGet(ar,
-                  HARVESTER_HARVESTABLES_PATH + "/" + harvestableId + "/failed-records",null);
-          JsonObject fileList = listResponse.jsonObject();
-          JsonArray fileArray = fileList.getJsonArray("failedRecords");
-          List<Future<ProcessedHarvesterResponseGetById>> failedRecordFutures = new ArrayList<>();
-          for (int i = offset; i < Math.min(offset + limit, fileArray.size()); i++)  {
-            failedRecordFutures.add(getFailedRecord(fileArray.getJsonObject(i)));
-          }
-          GenericCompositeFuture.all(failedRecordFutures).onComplete(results -> {
+    return getFailedRecords(harvestableId, offset, limit, null);
+  }
+
+  /**
+   * Gets failed records, with a limited number of requests to the Harvester at a time.
+   *
+   * @param recordHandler optional, receives each failed record as soon as it is fetched
+   */
+  public Future<ProcessedHarvesterResponseGet> getFailedRecords(
+      String harvestableId, int offset, int limit, Consumer<JsonObject> recordHandler) {
+    String listPath = HARVESTER_HARVESTABLES_PATH + "/" + harvestableId + "/failed-records";
+    Promise<ProcessedHarvesterResponseGet> listing = Promise.promise();
+    harvesterGetRequest(listPath).send(ar ->
+        XmlConversionExecutor.convert(vertx, bodySize(ar),
+            () -> new ProcessedHarvesterResponseGet(ar, listPath, null))
+            .onComplete(listing));
+    return listing.future().compose(listResponse -> {
+      JsonArray fileArray = listResponse.jsonObject().getJsonArray("failedRecords");
+      if (!listResponse.wasOK() || fileArray == null) {
+        return Future.succeededFuture(listResponse);
+      }
+      List<JsonObject> entries = new ArrayList<>();
+      for (int i = offset; i < Math.min(offset + limit, fileArray.size()); i++)  {
+        entries.add(fileArray.getJsonObject(i));
+      }
+      return new FetchPipeline<JsonObject, JsonObject>(vertx,
+          "Failed records of harvestable " + harvestableId,
+          LegacyServiceConfig.harvesterClientMaxInFlight,
+          LegacyServiceConfig.harvesterClientRetries,
+          LegacyServiceConfig.harvesterClientRetryBackoff)
+          .run(entries,
+              entry -> getFailedRecord(entry).map(response -> {
+                if (response == null) {
+                  return null;
+                }
+                JsonObject record = response.jsonObject();
+                record.put("harvestableId", harvestableId);
+                return record;
+              }),
+              recordHandler == null ? null : (index, record) -> recordHandler.accept(record))
+          .map(outcome -> {
             JsonObject response = new JsonObject();
-            JsonArray failedRecords = new JsonArray();
+            JsonArray failedRecords = new JsonArray(new ArrayList<Object>(outcome.results()));
             response.put("failedRecords", failedRecords);
-            for (int i = 0; i < results.result().list().size(); i++) {
-              if (results.result().resultAt(i) != null) {
-                JsonObject record = ((ProcessedHarvesterResponseGetById) results
-                    .result().resultAt(i)).jsonObject();
-                record.put("harvestableId", harvestableId);
-                failedRecords.add(record);
-              }
-            }
             response.put("totalRecords", failedRecords.size());
-            promise.complete(new ProcessedHarvesterResponseGet(response, 200, null));
+            return new ProcessedHarvesterResponseGet(response, 200, null);
           });
-        });
-    return promise.future();
+    });
   }
 
   /**
@@ -936,15 +1176,17 @@ public class LegacyHarvesterStorage {
     Promise<ProcessedHarvesterResponseGetById> promise = Promise.promise();
     String failedRecordUri =
         HARVESTER_HARVESTABLES_PATH + "/" + harvestableId + "/failed-records/" + recordNum + ".xml";
-    getConfigRecordById(HARVESTER_HARVESTABLES_PATH, harvestableId).onComplete(idLookup -> {
+    lookUpConfigRecordById(HARVESTER_HARVESTABLES_PATH, harvestableId).onComplete(idLookup -> {
       if (idLookup.succeeded()) {
         ProcessedHarvesterResponseGetById idLookUpResponse = idLookup.result();
         if (idLookup.result().wasNotFound()) {
           promise.complete(idLookUpResponse);
         } else if (idLookup.result().wasOK()) {
-          harvesterGetRequest(failedRecordUri)
-              .send(ar ->  promise.complete(
-                  new ProcessedHarvesterResponseGetById(ar,failedRecordUri,harvestableId,"")));
+          harvesterGetRequest(failedRecordUri).send(ar ->
+              XmlConversionExecutor.convert(vertx, bodySize(ar),
+                  () -> new ProcessedHarvesterResponseGetById(
+                      ar, failedRecordUri, harvestableId, ""))
+                  .onComplete(promise));
         } else {
           promise.fail("There was an error (" + idLookUpResponse.statusCode() + ") looking up "
               + HARVESTER_HARVESTABLES_PATH + "/" + harvestableId
@@ -958,19 +1200,30 @@ public class LegacyHarvesterStorage {
     return promise.future();
   }
 
+  /**
+   * Fetches a failed record file. Fails if the Harvester could not be reached or had an internal
+   * error, so that the request can be retried; completes with null if there was no record.
+   */
   private Future<ProcessedHarvesterResponseGetById> getFailedRecord(JsonObject entry) {
     Promise<ProcessedHarvesterResponseGetById> promise = Promise.promise();
     String uri = entry.getString("url");
     harvesterGetRequest(uri)
         .send(ar ->  {
-          if (ar.result().bodyAsString() != null) {
-            ProcessedHarvesterResponseGetById response =
-                new ProcessedHarvesterResponseGetById(ar, uri, "", "");
-            response.jsonObject()
-                .put("timeStamp", entry.getJsonObject("file").getString("date"));
-            response.jsonObject()
-                .put("recordNumber", entry.getJsonObject("file").getString("name"));
-            promise.complete(response);
+          if (ar.failed()) {
+            promise.fail(ar.cause());
+          } else if (ar.result().statusCode() >= INTERNAL_SERVER_ERROR) {
+            promise.fail("GET " + uri + " returned " + ar.result().statusCode());
+          } else if (ar.result().bodyAsString() != null) {
+            XmlConversionExecutor.convert(vertx, bodySize(ar),
+                () -> new ProcessedHarvesterResponseGetById(ar, uri, "", ""))
+                .map(response -> {
+                  response.jsonObject()
+                      .put("timeStamp", entry.getJsonObject("file").getString("date"));
+                  response.jsonObject()
+                      .put("recordNumber", entry.getJsonObject("file").getString("name"));
+                  return response;
+                })
+                .onComplete(promise);
           } else {
             promise.complete(null);
           }
@@ -1026,28 +1279,33 @@ public class LegacyHarvesterStorage {
                     "Can only PUT scripts to steps of type 'XmlTransformStep', step "
                         + id + ", '" + stepName + "' is '" + stepType + "'"));
           } else if (stepName.matches(name.replaceAll("\\*", ".*"))) {
-            String validationResponse = validateScriptAsXml(script);
-            if (validationResponse.equals("OK")) {
-              step.put(STEP_SCRIPT_KEY, script);
-
-              putConfigRecord(routingContext, ApiPaths.HARVESTER_STEPS_PATH, step, id)
-                  .onComplete(putStep -> {
-                    if (putStep.succeeded()) {
-                      promise.complete(new ProcessedHarvesterResponsePut(
-                          putStep.result().harvesterResponse, routingContext.request().path(), ""));
-                    } else {
-                      promise.complete(
-                          new ProcessedHarvesterResponsePut(
-                              putStep.result().statusCode(),putStep.cause().getMessage()));
-                    }
-                  });
-            } else {
-              promise.complete(
-                  new ProcessedHarvesterResponsePut(
-                      422,
-                      "Validation of the script as XML failed, error message was: "
-                      + validationResponse));
-            }
+            XmlConversionExecutor.convert(vertx, script.length(), () -> validateScriptAsXml(script))
+                .onComplete(validation -> {
+                  String validationResponse = validation.succeeded()
+                      ? validation.result() : validation.cause().getMessage();
+                  if ("OK".equals(validationResponse)) {
+                    step.put(STEP_SCRIPT_KEY, script);
+
+                    putConfigRecord(routingContext, ApiPaths.HARVESTER_STEPS_PATH, step, id)
+                        .onComplete(putStep -> {
+                          if (putStep.succeeded()) {
+                            promise.complete(new ProcessedHarvesterResponsePut(
+                                putStep.result().harvesterResponse, routingContext.request().path(),
+                                ""));
+                          } else {
+                            promise.complete(
+                                new ProcessedHarvesterResponsePut(
+                                    putStep.result().statusCode(),putStep.cause().getMessage()));
+                          }
+                        });
+                  } else {
+                    promise.complete(
+                        new ProcessedHarvesterResponsePut(
+                            422,
+                            "Validation of the script as XML failed, error message was: "
+                            + validationResponse));
+                  }
+                });
           } else {
             promise.complete(
                 new ProcessedHarvesterResponsePut(
@@ -1068,13 +1326,20 @@ public class LegacyHarvesterStorage {
     return promise.future();
   }
 
+  /**
+   * Gets the size of the body of a Harvester response, or 0 if there was no response.
+   */
+  private static int bodySize(AsyncResult<HttpResponse<Buffer>> response) {
+    return response.succeeded() && response.result().body() != null
+        ? response.result().body().length() : 0;
+  }
+
   /**
    * Checks for valid XML.
    */
   private static String validateScriptAsXml(String script) {
     try {
-      DocumentBuilder parser = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-      parser.parse(new ByteArrayInputStream(script.getBytes(StandardCharsets.UTF_8)));
+      XmlEngine.parse(new ByteArrayInputStream(script.getBytes(StandardCharsets.UTF_8)));
     } catch (ParserConfigurationException | IOException | SAXException pe) {
       return "Validation failed for script [ " + script + "]: " + pe.getMessage();
     }
@@ -1169,7 +1434,8 @@ public class LegacyHarvesterStorage {
    * Creates harvester get request.
    */
   public HttpRequest<Buffer> harvesterGetRequest(String pathAndQuery) {
-    HttpRequest<Buffer> request = restClient.get(LegacyServiceConfig.harvesterHost, pathAndQuery);
+    HttpRequest<Buffer> request = restClient.get(LegacyServiceConfig.harvesterHost, pathAndQuery)
+        .expect(timeRequest("GET", pathAndQuery));
     if (LegacyServiceConfig.hasHarvesterPort()) {
       request.port(LegacyServiceConfig.harvesterPort);
     }
@@ -1184,10 +1450,14 @@ public class LegacyHarvesterStorage {
   }
 
   /**
-   * Creates harvester post request.
+   * Creates harvester post request, clearing the tenant's cached config records when it's created
+   * and when the Harvester responds.
    */
   public HttpRequest<Buffer> harvesterPostRequest(String path) {
-    HttpRequest<Buffer> request = restClient.post(LegacyServiceConfig.harvesterHost, path);
+    ConfigRecordCache.invalidate(tenant);
+    HttpRequest<Buffer> request = restClient.post(LegacyServiceConfig.harvesterHost, path)
+        .expect(timeRequest("POST", path))
+        .expect(this::invalidateCacheOnResponse);
     if (LegacyServiceConfig.hasHarvesterPort()) {
       request.port(LegacyServiceConfig.harvesterPort);
     }
@@ -1203,10 +1473,14 @@ public class LegacyHarvesterStorage {
   }
 
   /**
-   * Creates harvester delete request.
+   * Creates harvester delete request, clearing the tenant's cached config records when it's
+   * created and when the Harvester responds.
    */
   public HttpRequest<Buffer> harvesterDeleteRequest(String path) {
-    HttpRequest<Buffer> request = restClient.delete(LegacyServiceConfig.harvesterHost, path);
+    ConfigRecordCache.invalidate(tenant);
+    HttpRequest<Buffer> request = restClient.delete(LegacyServiceConfig.harvesterHost, path)
+        .expect(timeRequest("DELETE", path))
+        .expect(this::invalidateCacheOnResponse);
     if (LegacyServiceConfig.hasHarvesterPort()) {
       request.port(LegacyServiceConfig.harvesterPort);
     }
@@ -1221,10 +1495,14 @@ public class LegacyHarvesterStorage {
   }
 
   /**
-   * Creates harvester put request.
+   * Creates harvester put request, clearing the tenant's cached config records when it's created
+   * and when the Harvester responds.
    */
   public HttpRequest<Buffer> harvesterPutRequest(String path) {
-    HttpRequest<Buffer> request = restClient.put(LegacyServiceConfig.harvesterHost, path);
+    ConfigRecordCache.invalidate(tenant);
+    HttpRequest<Buffer> request = restClient.put(LegacyServiceConfig.harvesterHost, path)
+        .expect(timeRequest("PUT", path))
+        .expect(this::invalidateCacheOnResponse);
     if (LegacyServiceConfig.hasHarvesterPort()) {
       request.port(LegacyServiceConfig.harvesterPort);
     }
@@ -1239,6 +1517,30 @@ public class LegacyHarvesterStorage {
     return request;
   }
 
+  /**
+   * Times a request to the Harvester from its creation until the response arrives, see
+   * {@link Metrics#recordHarvesterRequest}. The requests are sent right after they're created.
+   * Requests that get no response at all are not timed.
+   */
+  private static Function<HttpResponse<Void>, ResponsePredicateResult> timeRequest(
+      String method, String pathAndQuery) {
+    final long created = System.nanoTime();
+    return response -> {
+      Metrics.recordHarvesterRequest(method, pathAndQuery,
+          Integer.toString(response.statusCode()), System.nanoTime() - created);
+      return ResponsePredicateResult.success();
+    };
+  }
+
+  /**
+   * Clears the tenant's cached config records again when the Harvester has responded to a write,
+   * in case a look-up read the record while the write was in flight.
+   */
+  private ResponsePredicateResult invalidateCacheOnResponse(HttpResponse<Void> response) {
+    ConfigRecordCache.invalidate(tenant);
+    return ResponsePredicateResult.success();
+  }
+
   /**
    * Parses string to int, returns default if parsing fails.
    */
@@ -1250,28 +1552,4 @@ public class LegacyHarvesterStorage {
     }
   }
 
-  /**
-   * Applies offset and limit to lines of text.
-   */
-  public static String pagingPlainText(String linesOfText, int offset, int limit) {
-    if (linesOfText != null) {
-      BufferedReader bufReader = new BufferedReader(new StringReader(linesOfText));
-      try {
-        StringBuilder page = new StringBuilder();
-        String line;
-        for (int i = 0; i < offset + limit && ((line = bufReader.readLine()) != null); i++)  {
-          if (i >= offset) {
-            page.append(line).append(System.lineSeparator());
-          }
-        }
-        return page.toString();
-      } catch (IOException e) {
-        logger.error("Error reading lines of plain text: " + e.getMessage());
-        return null;
-      }
-    } else {
-      return null;
-    }
-  }
-
 }
@@ -0,0 +1,140 @@
+package org.folio.harvesteradmin.dataaccess;
+
+import io.vertx.core.Vertx;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.harvesteradmin.dataaccess.statics.LegacyServiceConfig;
+
+/**
+ * Follows the current log of a harvestable for any number of subscribers, by polling the
+ * Harvester for the lines added since the last poll, and passing them on to every subscriber.
+ * There is one tailer per tenant and harvestable, started by the first subscriber and stopped
+ * when the last one leaves, so that the Harvester is polled once per interval no matter how many
+ * clients are following the log.
+ * <br/><br/>
+ * New subscribers first get the most recent lines read, up to {@link #BACKLOG_LINES}.
+ */
+public class LiveLogTailer {
+
+  private static final Logger logger = LogManager.getLogger(LiveLogTailer.class);
+  private static final int BACKLOG_LINES = 100;
+  private static final Map<String, LiveLogTailer> tailers = new ConcurrentHashMap<>();
+
+  private final Vertx vertx;
+  private final String key;
+  private final String harvestableId;
+  private final LegacyHarvesterStorage legacyStorage;
+  private final List<BiConsumer<List<String>, String>> subscribers = new ArrayList<>();
+  private final Deque<String> backlog = new ArrayDeque<>();
+  private LogTail position;
+  private long timer = -1;
+  private boolean caughtUp;
+  private boolean stopped;
+
+  private LiveLogTailer(Vertx vertx, String tenant, String harvestableId, String start) {
+    this.vertx = vertx;
+    this.key = tenant + ":" + harvestableId;
+    this.harvestableId = harvestableId;
+    this.legacyStorage = new LegacyHarvesterStorage(vertx, tenant);
+    this.position = LogTail.startingFrom(start);
+  }
+
+  /**
+   * Subscribes to the lines added to the log of a harvestable.
+   *
+   * @param vertx         Vert.x instance, for requests to the Harvester and the poll timer
+   * @param tenant        the tenant
+   * @param harvestableId ID of the harvestable
+   * @param start         date and time to read the log from, if the log is not already followed
+   * @param subscriber    receives the new lines, and the cursor for the position after them
+   * @return ends the subscription
+   */
+  public static Runnable subscribe(Vertx vertx, String tenant, String harvestableId,
+                                   String start, BiConsumer<List<String>, String> subscriber) {
+    LiveLogTailer tailer = tailers.compute(tenant + ":" + harvestableId, (key, existing) -> {
+      LiveLogTailer current = existing == null
+          ? new LiveLogTailer(vertx, tenant, harvestableId, start) : existing;
+      current.add(subscriber);
+      return current;
+    });
+    return () -> tailers.computeIfPresent(tailer.key, (key, current) ->
+        current.remove(subscriber) ? current : null);
+  }
+
+  private synchronized void add(BiConsumer<List<String>, String> subscriber) {
+    subscribers.add(subscriber);
+    if (!backlog.isEmpty()) {
+      subscriber.accept(new ArrayList<>(backlog), position.cursor());
+    }
+    if (subscribers.size() == 1) {
+      logger.info("Following log of harvestable " + key);
+      poll();
+    }
+  }
+
+  /**
+   * Removes a subscriber, and stops polling if it was the last.
+   *
+   * @return true if there are subscribers left
+   */
+  private synchronized boolean remove(BiConsumer<List<String>, String> subscriber) {
+    subscribers.remove(subscriber);
+    if (subscribers.isEmpty()) {
+      logger.info("Stopped following log of harvestable " + key);
+      stopped = true;
+      vertx.cancelTimer(timer);
+      return false;
+    }
+    return true;
+  }
+
+  private void poll() {
+    legacyStorage.tailJobLog(harvestableId, position)
+        .onComplete(read -> {
+          synchronized (this) {
+            if (stopped) {
+              return;
+            }
+            if (read.succeeded()) {
+              publish(read.result());
+            } else {
+              logger.warn("Could not follow log of harvestable " + key + ": "
+                  + read.cause().getMessage());
+            }
+            timer = vertx.setTimer(LegacyServiceConfig.logTailPollIntervalMs, id -> poll());
+          }
+        });
+  }
+
+  private void publish(LogTail read) {
+    final boolean first = !caughtUp;
+    caughtUp = true;
+    position = read;
+    List<String> lines = read.getLines();
+    if (lines.isEmpty()) {
+      return;
+    }
+    if (first && lines.size() > BACKLOG_LINES) {
+      // the first read is the log so far, of which only the end is passed on
+      lines = lines.subList(lines.size() - BACKLOG_LINES, lines.size());
+    }
+    for (String line : lines) {
+      if (backlog.size() == BACKLOG_LINES) {
+        backlog.removeFirst();
+      }
+      backlog.addLast(line);
+    }
+    String cursor = read.cursor();
+    // copied, since a subscriber may leave when passed the lines
+    for (BiConsumer<List<String>, String> subscriber : new ArrayList<>(subscribers)) {
+      subscriber.accept(lines, cursor);
+    }
+  }
+}
@@ -0,0 +1,159 @@
+package org.folio.harvesteradmin.dataaccess;
+
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonArray;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A position in the current log of a harvestable, with the lines that were read to get there.
+ * <br/><br/>
+ * The Harvester returns the log from a given second on, not from a given line, so a position is
+ * the second of the last time-stamped line read, the number of lines read from that second on, and
+ * a hash of the last line read. Reading on from a position fetches the log from that second and
+ * skips the lines already read, after checking by the hash that the log still lines up with what
+ * was read before. If it doesn't, the log is matched up on the last line read instead.
+ * <br/><br/>
+ * The position is passed to clients as an opaque cursor.
+ */
+public class LogTail {
+
+  private static final int TIME_STAMP_LENGTH = 23;
+  private static final int SECOND_LENGTH = 19;
+
+  private final String from;
+  private final int linesFrom;
+  private final int lastLineHash;
+  private final List<String> lines;
+
+  private LogTail(String from, int linesFrom, int lastLineHash, List<String> lines) {
+    this.from = from;
+    this.linesFrom = linesFrom;
+    this.lastLineHash = lastLineHash;
+    this.lines = lines;
+  }
+
+  /**
+   * Creates the position at the start of the log from the given date and time on.
+   *
+   * @param from date and time in ISO format, read to the second
+   */
+  public static LogTail startingFrom(String from) {
+    return new LogTail(from.substring(0, Math.min(from.length(), SECOND_LENGTH)), 0, 0,
+        Collections.emptyList());
+  }
+
+  /**
+   * Creates the position from a cursor.
+   *
+   * @throws IllegalArgumentException if the cursor is invalid
+   */
+  public static LogTail fromCursor(String cursor) {
+    try {
+      JsonArray values = new JsonArray(
+          new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+      if (values.size() != 3 || values.getInteger(1) < 0) {
+        throw new IllegalArgumentException("Invalid log cursor: " + cursor);
+      }
+      return new LogTail(values.getString(0), values.getInteger(1), values.getInteger(2),
+          Collections.emptyList());
+    } catch (DecodeException | ClassCastException | NullPointerException e) {
+      throw new IllegalArgumentException("Invalid log cursor: " + cursor);
+    }
+  }
+
+  /**
+   * Gets the cursor for this position.
+   */
+  public String cursor() {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(
+        new JsonArray().add(from).add(linesFrom).add(lastLineHash).encode()
+            .getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Gets the date and time to get the log from, to read on from this position.
+   */
+  public String from() {
+    return from;
+  }
+
+  /**
+   * Gets the lines that were read to get to this position.
+   */
+  public List<String> getLines() {
+    return lines;
+  }
+
+  /**
+   * Reads on from this position.
+   *
+   * @param linesFromSecond the complete lines of the log from {@link #from()} on
+   * @return the position at the end of the lines, with the lines that are new
+   */
+  public LogTail readOn(List<String> linesFromSecond) {
+    int total = linesFromSecond.size();
+    int skip = alreadyRead(linesFromSecond);
+    List<String> newLines = linesFromSecond.subList(skip, total);
+    if (total == 0) {
+      return new LogTail(from, linesFrom, lastLineHash, newLines);
+    }
+    int lastHash = linesFromSecond.get(total - 1).hashCode();
+    String lastSecond = null;
+    for (int i = total - 1; i >= 0 && lastSecond == null; i--) {
+      lastSecond = second(linesFromSecond.get(i));
+    }
+    if (lastSecond == null || lastSecond.compareTo(from) <= 0) {
+      return new LogTail(from, total, lastHash, newLines);
+    }
+    int firstOfLastSecond = 0;
+    while (firstOfLastSecond < total) {
+      String second = second(linesFromSecond.get(firstOfLastSecond));
+      if (second != null && second.compareTo(lastSecond) >= 0) {
+        break;
+      }
+      firstOfLastSecond++;
+    }
+    return new LogTail(lastSecond, total - firstOfLastSecond, lastHash, newLines);
+  }
+
+  /**
+   * Gets the number of lines, from the start of the given lines, that were read before.
+   */
+  private int alreadyRead(List<String> linesFromSecond) {
+    if (linesFrom == 0) {
+      return 0;
+    }
+    if (linesFrom <= linesFromSecond.size()
+        && linesFromSecond.get(linesFrom - 1).hashCode() == lastLineHash) {
+      return linesFrom;
+    }
+    for (int i = linesFromSecond.size() - 1; i >= 0; i--) {
+      if (linesFromSecond.get(i).hashCode() == lastLineHash) {
+        return i + 1;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Gets the second of a time-stamped log line, like <code>2022-11-29 10:15:33,123 INFO ...</code>,
+   * as <code>2022-11-29T10:15:33</code>, or null if the line has no time stamp.
+   */
+  private static String second(String line) {
+    if (line.length() <= TIME_STAMP_LENGTH || line.charAt(TIME_STAMP_LENGTH) != ' '
+        || line.charAt(10) != ' ' || line.charAt(19) != ',') {
+      return null;
+    }
+    for (int i = 0; i < SECOND_LENGTH; i++) {
+      char c = line.charAt(i);
+      boolean separator = i == 4 || i == 7 || i == 10 || i == 13 || i == 16;
+      if (!separator && (c < '0' || c > '9')) {
+        return null;
+      }
+    }
+    return line.substring(0, 10) + "T" + line.substring(11, SECOND_LENGTH);
+  }
+}
@@ -0,0 +1,120 @@
+package org.folio.harvesteradmin.dataaccess;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.harvesteradmin.dataaccess.statics.LegacyServiceConfig;
+import org.folio.harvesteradmin.metrics.Metrics;
+
+/**
+ * Runs XML conversions and validations of large payloads on a dedicated worker pool, rather than
+ * on the event loop, so that one tenant's multi-megabyte script or record set doesn't hold up the
+ * requests of other tenants. Payloads below the configured size threshold are converted inline,
+ * since handing them off would cost more than the conversion.
+ * <br/><br/>
+ * Keeps counts of conversions waiting for a worker and conversions running, for monitoring.
+ */
+public class XmlConversionExecutor {
+
+  private static final Logger logger = LogManager.getLogger(XmlConversionExecutor.class);
+  private static final String POOL_NAME = "harvester-admin-xml-conversion";
+  private static final Map<Vertx, WorkerExecutor> executors =
+      Collections.synchronizedMap(new WeakHashMap<>());
+  private static final AtomicInteger queued = new AtomicInteger();
+  private static final AtomicInteger running = new AtomicInteger();
+  private static final AtomicLong offloaded = new AtomicLong();
+  private static final AtomicLong inline = new AtomicLong();
+
+  private XmlConversionExecutor() {
+  }
+
+  /**
+   * Runs a conversion, on the worker pool if the payload is at or above the size threshold, or
+   * else directly on the calling thread.
+   *
+   * @param vertx      the Vert.x instance whose worker pool to use
+   * @param size       size of the payload to convert, in bytes or characters
+   * @param conversion the conversion
+   * @return the result of the conversion, failed if the conversion threw an exception
+   */
+  public static <T> Future<T> convert(Vertx vertx, int size, Callable<T> conversion) {
+    if (size < LegacyServiceConfig.xmlConversionOffloadThreshold) {
+      inline.incrementAndGet();
+      try {
+        return Future.succeededFuture(timed("inline", size, conversion));
+      } catch (Exception e) {
+        return Future.failedFuture(e);
+      }
+    }
+    offloaded.incrementAndGet();
+    int waiting = queued.incrementAndGet();
+    logger.debug("Converting " + size + " bytes on worker pool, " + waiting
+        + " conversion(s) waiting, " + running.get() + " running");
+    return executor(vertx).executeBlocking(promise -> {
+      queued.decrementAndGet();
+      running.incrementAndGet();
+      try {
+        promise.complete(timed("worker", size, conversion));
+      } catch (Exception e) {
+        promise.fail(e);
+      } finally {
+        running.decrementAndGet();
+      }
+    }, false);
+  }
+
+  private static <T> T timed(String executor, int size, Callable<T> conversion)
+      throws Exception {
+    long started = System.nanoTime();
+    try {
+      return conversion.call();
+    } finally {
+      Metrics.recordConversion(Metrics.FROM_XML, executor, size, System.nanoTime() - started);
+    }
+  }
+
+  /**
+   * Gets the number of conversions waiting for a worker.
+   */
+  public static int queued() {
+    return queued.get();
+  }
+
+  /**
+   * Gets the number of conversions currently running on the worker pool.
+   */
+  public static int running() {
+    return running.get();
+  }
+
+  /**
+   * Gets the number of conversions handed off to the worker pool since start-up.
+   */
+  public static long offloaded() {
+    return offloaded.get();
+  }
+
+  /**
+   * Gets the number of conversions done on the calling thread since start-up.
+   */
+  public static long inline() {
+    return inline.get();
+  }
+
+  private static WorkerExecutor executor(Vertx vertx) {
+    return executors.computeIfAbsent(vertx, v -> {
+      logger.info("Creating XML conversion worker pool with "
+          + LegacyServiceConfig.xmlConversionPoolSize + " threads, for payloads of "
+          + LegacyServiceConfig.xmlConversionOffloadThreshold + " bytes or more");
+      return v.createSharedWorkerExecutor(POOL_NAME, LegacyServiceConfig.xmlConversionPoolSize);
+    });
+  }
+}
@@ -1,5 +1,7 @@
 package org.folio.harvesteradmin.dataaccess.dataconverters;
 
+import io.netty.buffer.ByteBufInputStream;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.DecodeException;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
@@ -11,15 +13,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
 /**
@@ -92,42 +93,52 @@ public class HarvesterXml2Json {
    * @return JSON representation of Harvester XML
    */
   public static JsonObject convertRecordSetToJson(String xml) {
-    JsonObject jsonObject = new JsonObject();
+    XMLStreamReader reader = null;
     try {
-      Document doc = xmlStringToXmlDocument(xml);
-      if (doc != null) {
-        stripWhiteSpaceNodes(doc);
-        Node records = doc.getDocumentElement();
-        String arrayName = doc.getDocumentElement().getNodeName();
-        arrayName = arrayName.replace("tranformation", "transformation");
-        arrayName = arrayName.replace("failed-records", "failedRecords");
-        jsonObject.put(arrayName, xmlRecords2jsonArray(records));
-        int recordCount =
-            Integer.parseInt(records.getAttributes().getNamedItem("count").getTextContent());
-        jsonObject.put("totalRecords", recordCount);
-      }
-    } catch (IOException | ParserConfigurationException | SAXException e) {
+      reader = HarvesterXmlStreamConverter.getInputFactory()
+          .createXMLStreamReader(new StringReader(xml));
+      return HarvesterXmlStreamConverter.convertRecordSet(reader);
+    } catch (XMLStreamException e) {
       logger.error("Couldn't parse string [" + xml + "] as XML document: " + e.getMessage());
+    } finally {
+      closeQuietly(reader);
     }
-    return jsonObject;
-  }
-
-  protected static Optional<Map.Entry<String, Object>> getRootObject(JsonObject json) {
-    return json.stream().filter(entry -> entry.getValue() instanceof JsonObject).findFirst();
+    return new JsonObject();
   }
 
   /**
-   * Creates JSON array of JSON objects from a Node known to contain repeatable elements.
+   * Create JSON object from a Harvester response body known to contain 0, 1 or more repeatable
+   * elements, reading the XML directly from the response buffer in a single pass.
    *
-   * @param records An XML node with repeatable elements
-   * @return XML elements as JSON array
+   * @param xml Harvester XML output
+   * @return JSON representation of Harvester XML
    */
-  protected static JsonArray xmlRecords2jsonArray(Node records) {
-    JsonArray jsonArray = new JsonArray();
-    for (Node record : iterable(records)) {
-      jsonArray.add(recurseIntoNode(record));
+  public static JsonObject convertRecordSetToJson(Buffer xml) {
+    XMLStreamReader reader = null;
+    try {
+      reader = HarvesterXmlStreamConverter.getInputFactory()
+          .createXMLStreamReader(new ByteBufInputStream(xml.getByteBuf()));
+      return HarvesterXmlStreamConverter.convertRecordSet(reader);
+    } catch (XMLStreamException e) {
+      logger.error("Couldn't parse string [" + xml + "] as XML document: " + e.getMessage());
+    } finally {
+      closeQuietly(reader);
+    }
+    return new JsonObject();
+  }
+
+  private static void closeQuietly(XMLStreamReader reader) {
+    if (reader != null) {
+      try {
+        reader.close();
+      } catch (XMLStreamException e) {
+        logger.debug("Could not close XML stream reader: " + e.getMessage());
+      }
     }
-    return jsonArray;
+  }
+
+  protected static Optional<Map.Entry<String, Object>> getRootObject(JsonObject json) {
+    return json.stream().filter(entry -> entry.getValue() instanceof JsonObject).findFirst();
   }
 
   /**
@@ -273,9 +284,7 @@ public class HarvesterXml2Json {
    */
   protected static Document xmlStringToXmlDocument(String xmlString)
       throws IOException, ParserConfigurationException, SAXException {
-    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-    DocumentBuilder builder = factory.newDocumentBuilder();
-    return builder.parse(new InputSource(new StringReader(xmlString)));
+    return XmlEngine.parse(xmlString);
   }
 
   /*
@@ -0,0 +1,309 @@
+package org.folio.harvesteradmin.dataaccess.dataconverters;
+
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Single-pass StAX conversion of Harvester record sets to JSON.
+ * <br/><br/>
+ * Produces the same JSON as the DOM based conversion in {@link HarvesterXml2Json} did: whitespace
+ * only text nodes are ignored, elements with child elements become objects (repeated
+ * 'stepAssociations' are collected in an array), elements without child elements become string
+ * properties, 'json' elements are decoded as JSON objects, and scripts and test data of nested
+ * entities are omitted. Elements are only materialized as JSON objects once they turn out to have
+ * child elements, so the XML is never held in memory as a tree.
+ */
+class HarvesterXmlStreamConverter {
+
+  private static final Logger logger = LogManager.getLogger("harvester-admin");
+  private static final String REPORT_CDATA_EVENT =
+      "http://java.sun.com/xml/stream/properties/report-cdata-event";
+  private static final XMLInputFactory xmlInputFactory = createInputFactory();
+
+  private HarvesterXmlStreamConverter() {
+  }
+
+  private static XMLInputFactory createInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    // Element and attribute names are used as qualified names, the way the DOM parser saw them.
+    factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    try {
+      // CDATA sections are separate nodes in DOM; the JDK parser reports them as characters
+      // unless told otherwise
+      factory.setProperty(REPORT_CDATA_EVENT, true);
+    } catch (IllegalArgumentException e) {
+      logger.debug("XML stream parser has no CDATA reporting option: " + e.getMessage());
+    }
+    return factory;
+  }
+
+  static XMLInputFactory getInputFactory() {
+    return xmlInputFactory;
+  }
+
+  /**
+   * Converts a Harvester record set, ie the records found under the root element.
+   *
+   * @param reader stream reader positioned at the start of the document
+   * @return JSON object with the array of records and a totalRecords count
+   */
+  static JsonObject convertRecordSet(XMLStreamReader reader) throws XMLStreamException {
+    JsonObject jsonObject = new JsonObject();
+    JsonArray records = new JsonArray();
+    String arrayName = null;
+    String count = null;
+    Deque<Frame> stack = new ArrayDeque<>();
+    TextNode text = new TextNode();
+    int depth = 0;
+    while (reader.hasNext()) {
+      int event = reader.next();
+      switch (event) {
+        case XMLStreamConstants.START_ELEMENT:
+          depth++;
+          if (depth == 1) {
+            arrayName = qualifiedName(reader.getPrefix(), reader.getLocalName());
+            count = attributeValue(reader, "count");
+          } else {
+            text.flushTo(stack.peek(), records, depth - 1);
+            String entityType = attributeValue(reader, "xsi:type");
+            Frame frame = new Frame(qualifiedName(reader.getPrefix(), reader.getLocalName()),
+                entityType);
+            if (depth == 2) {
+              // records are always rendered as objects, with or without child elements
+              frame.becomeBranch();
+            } else {
+              stack.peek().becomeBranch();
+            }
+            stack.push(frame);
+          }
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          text.flushTo(stack.peek(), records, depth);
+          depth--;
+          if (depth >= 1) {
+            Frame frame = stack.pop();
+            if (depth == 1) {
+              records.add(frame.json);
+            } else {
+              stack.peek().addChildElement(frame);
+            }
+          }
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.SPACE:
+        case XMLStreamConstants.ENTITY_REFERENCE:
+          if (depth >= 1) {
+            text.append(stack.peek(), records, depth, false, reader.getText());
+          }
+          break;
+        case XMLStreamConstants.CDATA:
+          if (depth >= 1) {
+            text.append(stack.peek(), records, depth, true, reader.getText());
+          }
+          break;
+        case XMLStreamConstants.COMMENT:
+          if (depth >= 1) {
+            text.flushTo(stack.peek(), records, depth);
+            addOtherNode(stack.peek(), records, depth, "#comment", reader.getText(), false);
+          }
+          break;
+        case XMLStreamConstants.PROCESSING_INSTRUCTION:
+          if (depth >= 1) {
+            text.flushTo(stack.peek(), records, depth);
+            addOtherNode(stack.peek(), records, depth, reader.getPITarget(),
+                reader.getPIData() == null ? "" : reader.getPIData(), false);
+          }
+          break;
+        default:
+          break;
+      }
+    }
+    if (arrayName != null) {
+      arrayName = arrayName.replace("tranformation", "transformation");
+      arrayName = arrayName.replace("failed-records", "failedRecords");
+      jsonObject.put(arrayName, records);
+      jsonObject.put("totalRecords", Integer.parseInt(count));
+    }
+    return jsonObject;
+  }
+
+  /**
+   * Registers a node that is not an element (text, comment, processing instruction) with the
+   * element it occurs in. Directly under the root element such nodes become empty records.
+   */
+  private static void addOtherNode(Frame frame, JsonArray records, int depth, String name,
+                                   String content, boolean isText) {
+    if (isWhiteSpace(content)) {
+      return;
+    }
+    if (depth == 1) {
+      records.add(new JsonObject());
+    } else {
+      frame.addOtherNode(name, content, isText);
+    }
+  }
+
+  private static String attributeValue(XMLStreamReader reader, String qualifiedName) {
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      if (qualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i))
+          .equals(qualifiedName)) {
+        return reader.getAttributeValue(i);
+      }
+    }
+    return null;
+  }
+
+  private static String qualifiedName(String prefix, String localName) {
+    return (prefix == null || prefix.isEmpty()) ? localName : prefix + ":" + localName;
+  }
+
+  /**
+   * Equivalent of String.matches("\\s+"), without the regular expression.
+   */
+  private static boolean isWhiteSpace(String text) {
+    if (text.isEmpty()) {
+      return false;
+    }
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c != ' ' && c != '\t' && c != '\n' && c != '\u000B' && c != '\f' && c != '\r') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Puts the content of an element without child elements.
+   */
+  private static void putLeaf(JsonObject json, String name, String content,
+                              boolean isChildEntity) {
+    if (name.equals("json")) {
+      try {
+        if (!content.isEmpty()) {
+          json.put(name, new JsonObject(content));
+        }
+      } catch (DecodeException de) {
+        logger.error("Could not parse content of 'json' field as JSON: " + de.getMessage());
+        json.put(name, content);
+      }
+    } else if (isChildEntity
+        && (name.equals("script") || name.equals("testData") || name.equals("testOutput"))) {
+      json.put(name, (content.isEmpty() ? "" : "<'" + name + "' omitted from nested displays>"));
+    } else {
+      json.put(name, content);
+    }
+  }
+
+  /**
+   * Character data, collected across events until the end of the text (or CDATA) node.
+   */
+  private static class TextNode {
+    private final StringBuilder content = new StringBuilder();
+    private boolean isCdata;
+
+    void append(Frame frame, JsonArray records, int depth, boolean cdata, String characters) {
+      if (content.length() > 0 && cdata != isCdata) {
+        flushTo(frame, records, depth);
+      }
+      isCdata = cdata;
+      content.append(characters);
+    }
+
+    void flushTo(Frame frame, JsonArray records, int depth) {
+      if (content.length() > 0) {
+        addOtherNode(frame, records, depth, isCdata ? "#cdata-section" : "#text",
+            content.toString(), true);
+        content.setLength(0);
+      }
+    }
+  }
+
+  /**
+   * An open element. It remains a candidate for a plain string property until a child element
+   * shows up, at which point it becomes a JSON object.
+   */
+  private static class Frame {
+    private final String name;
+    private final String entityType;
+    private JsonObject json;
+    private StringBuilder textContent;
+    private List<String[]> pendingNodes;
+
+    Frame(String name, String entityType) {
+      this.name = name;
+      this.entityType = entityType;
+    }
+
+    boolean isBranch() {
+      return json != null;
+    }
+
+    boolean isChildEntity() {
+      return entityType != null;
+    }
+
+    void becomeBranch() {
+      if (json == null) {
+        json = new JsonObject();
+        if (entityType != null) {
+          json.put("entityType", entityType);
+        }
+        if (pendingNodes != null) {
+          for (String[] node : pendingNodes) {
+            putLeaf(json, node[0], node[1], isChildEntity());
+          }
+          pendingNodes = null;
+        }
+        textContent = null;
+      }
+    }
+
+    void addOtherNode(String nodeName, String content, boolean isText) {
+      if (isBranch()) {
+        putLeaf(json, nodeName, content, isChildEntity());
+      } else {
+        if (pendingNodes == null) {
+          pendingNodes = new ArrayList<>();
+        }
+        pendingNodes.add(new String[] {nodeName, content});
+        if (isText) {
+          if (textContent == null) {
+            textContent = new StringBuilder();
+          }
+          textContent.append(content);
+        }
+      }
+    }
+
+    void addChildElement(Frame child) {
+      if (child.isBranch()) {
+        if (child.name.equals("stepAssociations")) {
+          if (!json.containsKey("stepAssociations")) {
+            json.put("stepAssociations", new JsonArray());
+          }
+          json.getJsonArray("stepAssociations").add(child.json);
+        } else {
+          json.put(child.name, child.json);
+        }
+      } else {
+        putLeaf(json, child.name,
+            child.textContent == null ? "" : child.textContent.toString(), isChildEntity());
+      }
+    }
+  }
+}
@@ -1,70 +1,62 @@
 package org.folio.harvesteradmin.dataaccess.dataconverters;
 
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
-import java.io.StringWriter;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Map.Entry;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
-import org.w3c.dom.DOMException;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
+import org.folio.harvesteradmin.metrics.Metrics;
 import org.w3c.dom.Node;
 
 public class JsonToHarvesterXml {
 
-  private static final Logger logger = LogManager.getLogger("harvester-admin");
+  private static final int INITIAL_BUFFER_SIZE = 4096;
+  private static final String XSI_NAMESPACE = "http://www.w3.org/2001/XMLSchema-instance";
 
   /**
    * Embeds incoming JSON in two levels of outer objects,
    * see {@link #wrapJson(JsonObject, String)} and converts the
    * result to XML.
    *
+   * <p>The XML is streamed directly into the returned Buffer, without building a DOM or
+   * String of the record first, since records like steps can carry large scripts.
+   *
    * @param json         Incoming JSON
    * @param rootProperty The top-level property to embed the JSON in
-   * @return wrapped JSON converted to an XML string
+   * @return wrapped JSON converted to XML, UTF-8 encoded
    */
-  public static String convertToHarvesterRecord(JsonObject json, String rootProperty, String tenant)
-      throws ParserConfigurationException, TransformerException {
+  public static Buffer convertToHarvesterRecord(JsonObject json, String rootProperty, String tenant)
+      throws XMLStreamException {
+    long started = System.nanoTime();
     json.put("acl", tenant);
     JsonObject wrapped = wrapJson(json, rootProperty);
-    Document doc = recordJsonToHarvesterXml(wrapped);
-    return writeXmlDocumentToString(doc);
-  }
-
-  /**
-   * Creates XML document from a JSON structure.
-   *
-   * @param json structure to transform
-   * @return XML document
-   */
-  private static Document recordJsonToHarvesterXml(JsonObject json)
-      throws DOMException, ParserConfigurationException {
-    DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
-    DocumentBuilder docBuilder = docFactory.newDocumentBuilder();
-    Document doc = docBuilder.newDocument();
-
-    for (Entry<String, Object> jsonProperty : json) {
-      if (jsonProperty.getValue() instanceof JsonObject) {
-        Element element = doc.createElement(jsonProperty.getKey());
-        doc.appendChild(element);
-        recurseIntoJsonObject((JsonObject) jsonProperty.getValue(), doc, element);
+    Buffer buffer = Buffer.buffer(INITIAL_BUFFER_SIZE);
+    XMLStreamWriter writer = XmlEngine.newStreamWriter(new BufferOutputStream(buffer));
+    try {
+      writer.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+      for (Entry<String, Object> jsonProperty : wrapped) {
+        if (jsonProperty.getValue() instanceof JsonObject) {
+          writer.writeStartElement(jsonProperty.getKey());
+          recurseIntoJsonObject((JsonObject) jsonProperty.getValue(), writer);
+          writer.writeEndElement();
+        }
       }
+      writer.writeEndDocument();
+      writer.flush();
+    } finally {
+      writer.close();
     }
-    return doc;
+    Metrics.recordConversion(
+        Metrics.TO_XML, "inline", buffer.length(), System.nanoTime() - started);
+    return buffer;
   }
 
   /**
-   * Recursively creates XML tree from JSON tree.
+   * Recursively writes XML tree from JSON tree, into the element last started.
    *
    * <p>Note: This method knows about Harvester record features,
    * in particular that elements with an 'entityType' child
@@ -73,36 +65,51 @@ public class JsonToHarvesterXml {
    * should be stored as JSON strings in the XML.
    *
    * @param object The JSON object to traverse
-   * @param doc    The XML document to add elements to
-   * @param node   The XML element corresponding to the JSON object
+   * @param writer The XML writer, positioned in the element corresponding to the JSON object
    */
-  private static void recurseIntoJsonObject(JsonObject object, Document doc, Element node) {
+  private static void recurseIntoJsonObject(JsonObject object, XMLStreamWriter writer)
+      throws XMLStreamException {
+    // attributes must be written before any child elements
+    if (object.getValue("entityType") instanceof String) {
+      writer.writeNamespace("xsi", XSI_NAMESPACE);
+      writer.writeAttribute("xsi", XSI_NAMESPACE, "type", object.getString("entityType"));
+    }
     for (Entry<String, Object> jsonProperty : object) {
       if (jsonProperty.getValue() instanceof String) {
-        if (jsonProperty.getKey().equals("entityType")) {
-          node.setAttributeNS(
-              "http://www.w3.org/2001/XMLSchema-instance",
-              "xsi:type",
-              jsonProperty.getValue().toString());
-        } else {
-          Element el = doc.createElement(jsonProperty.getKey());
-          el.setTextContent(jsonProperty.getValue().toString());
-          node.appendChild(el);
+        if (!jsonProperty.getKey().equals("entityType")) {
+          writer.writeStartElement(jsonProperty.getKey());
+          writeText(jsonProperty.getValue().toString(), writer);
+          writer.writeEndElement();
         }
       } else if (jsonProperty.getValue() instanceof JsonArray) {
-        iterateJsonArray(jsonProperty.getKey(), (JsonArray) jsonProperty.getValue(), doc, node);
+        iterateJsonArray(jsonProperty.getKey(), (JsonArray) jsonProperty.getValue(), writer);
       } else if (jsonProperty.getValue() instanceof JsonObject) {
-        Element el = doc.createElement(jsonProperty.getKey());
-        node.appendChild(el);
+        writer.writeStartElement(jsonProperty.getKey());
         if (jsonProperty.getKey().equals("json")) {
-          el.setTextContent(((JsonObject) jsonProperty.getValue()).encodePrettily());
+          writeText(((JsonObject) jsonProperty.getValue()).encodePrettily(), writer);
         } else {
-          recurseIntoJsonObject((JsonObject) jsonProperty.getValue(), doc, el);
+          recurseIntoJsonObject((JsonObject) jsonProperty.getValue(), writer);
         }
+        writer.writeEndElement();
       }
     }
   }
 
+  /**
+   * Writes text content with carriage returns as character references, like the DOM serializer
+   * did, since an XML parser normalizes a literal carriage return away, and values with CRLF line
+   * breaks would not come back from the Harvester unchanged.
+   */
+  private static void writeText(String text, XMLStreamWriter writer) throws XMLStreamException {
+    int start = 0;
+    for (int cr = text.indexOf('\r'); cr >= 0; cr = text.indexOf('\r', start)) {
+      writer.writeCharacters(text.substring(start, cr));
+      writer.writeEntityRef("#13");
+      start = cr + 1;
+    }
+    writer.writeCharacters(text.substring(start));
+  }
+
   /**
    * Loops a JsonArray and recurses into each element of the array.
    *
@@ -111,48 +118,25 @@ public class JsonToHarvesterXml {
    *
    * @param arrayName All elements are given the arrayName of the array
    * @param array     JSON array to transform to XML
-   * @param doc       The owner document
-   * @param parent    The parent element
+   * @param writer    The XML writer, positioned in the parent element
    */
-  private static void iterateJsonArray(String arrayName, JsonArray array, Document doc,
-                                       Element parent) {
+  private static void iterateJsonArray(String arrayName, JsonArray array, XMLStreamWriter writer)
+      throws XMLStreamException {
     for (Object element : array) {
       if (element instanceof JsonObject) {
-        Element el = doc.createElement(arrayName);
-        parent.appendChild(el);
-        recurseIntoJsonObject((JsonObject) element, doc, el);
+        writer.writeStartElement(arrayName);
+        recurseIntoJsonObject((JsonObject) element, writer);
+        writer.writeEndElement();
       }
       // Note: No support for JSON array of Strings
     }
   }
 
-  /**
-   * Create XML String from document DOM.
-   *
-   * @param xmlDocument The XML document to be written to a String
-   * @return XML String
-   */
-  private static String writeXmlDocumentToString(Document xmlDocument) throws TransformerException {
-    TransformerFactory tf = TransformerFactory.newInstance();
-    Transformer transformer;
-    transformer = tf.newTransformer();
-    StringWriter writer = new StringWriter();
-    transformer.transform(new DOMSource(xmlDocument), new StreamResult(writer));
-    return writer.getBuffer().toString();
-  }
-
   /**
    * Create XML String from document node.
    */
   public static String writeXmlNodeToString(Node node) throws TransformerException {
-    TransformerFactory tf = TransformerFactory.newInstance();
-    Transformer transformer;
-    transformer = tf.newTransformer();
-    transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-    transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
-    StringWriter writer = new StringWriter();
-    transformer.transform(new DOMSource(node), new StreamResult(writer));
-    return writer.getBuffer().toString();
+    return XmlEngine.write(node, true);
   }
 
 
@@ -203,32 +187,24 @@ public class JsonToHarvesterXml {
     return wrappedEntity;
   }
 
-  /*
-   * main is meant for troubleshooting the transformation or testing changes to it.
+  /**
+   * Lets the XML writer append its output directly to a Buffer.
    */
-  /*
-  public static void main( String[] args ) throws TransformerException
-  {
-    try
-    {
-      Document doc = recordJsonToHarvesterXml( new JsonObject(
-       TestRecords.jsonSampleHarvestable() ) );
-      System.out.println( writeXmlDocumentToString( doc ) );
-
-      JsonObject jsonObject = HarvesterXml2Json.convertRecordToJson(
-      TestRecords.xmlSampleHarvestable() );
-      if ( jsonObject != null )
-      {
-        Document doc2 = recordJsonToHarvesterXml( jsonObject );
-        System.out.println( writeXmlDocumentToString( doc2 ) );
-      }
+  private static class BufferOutputStream extends OutputStream {
+    private final Buffer buffer;
+
+    BufferOutputStream(Buffer buffer) {
+      this.buffer = buffer;
+    }
 
+    @Override
+    public void write(int b) {
+      buffer.appendByte((byte) b);
     }
-    catch ( DOMException | ParserConfigurationException e )
-    {
-      logger.error( e.getMessage() );
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+      buffer.appendBytes(bytes, offset, length);
     }
   }
-  */
-
 }
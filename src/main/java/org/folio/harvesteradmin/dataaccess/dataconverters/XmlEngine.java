@@ -0,0 +1,158 @@
+package org.folio.harvesteradmin.dataaccess.dataconverters;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * Shared XML parsing and serialization for the data converters.
+ * <br/><br/>
+ * The DocumentBuilderFactory and the TransformerFactory are looked up and configured once, with
+ * secure processing on and external entities, DTDs and stylesheets off. DocumentBuilders and
+ * Transformers are not thread-safe, but can be reused, so each thread gets its own, which are
+ * reset between uses rather than created per conversion. Streaming XML writers come from a single
+ * XMLOutputFactory, which is thread-safe once configured.
+ */
+public class XmlEngine {
+
+  private static final Logger logger = LogManager.getLogger("harvester-admin");
+  private static final DocumentBuilderFactory documentBuilderFactory =
+      createDocumentBuilderFactory();
+  private static final TransformerFactory transformerFactory = createTransformerFactory();
+  private static final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+  private static final ThreadLocal<DocumentBuilder> documentBuilders = new ThreadLocal<>();
+  private static final ThreadLocal<Transformer> transformers = new ThreadLocal<>();
+  private static final ThreadLocal<Transformer> indentingTransformers = new ThreadLocal<>();
+
+  private XmlEngine() {
+  }
+
+  private static DocumentBuilderFactory createDocumentBuilderFactory() {
+    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setXIncludeAware(false);
+    factory.setExpandEntityReferences(false);
+    try {
+      factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+      factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+      factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+      factory.setFeature(
+          "http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+    } catch (ParserConfigurationException e) {
+      logger.warn("Could not configure secure XML parsing: " + e.getMessage());
+    }
+    return factory;
+  }
+
+  private static TransformerFactory createTransformerFactory() {
+    TransformerFactory factory = TransformerFactory.newInstance();
+    try {
+      factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+    } catch (TransformerConfigurationException e) {
+      logger.warn("Could not configure secure XML serialization: " + e.getMessage());
+    }
+    try {
+      factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+      factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_STYLESHEET, "");
+    } catch (IllegalArgumentException e) {
+      logger.debug("XML transformer has no external access attributes: " + e.getMessage());
+    }
+    return factory;
+  }
+
+  /**
+   * Gets this thread's DocumentBuilder, reset for a new document.
+   */
+  public static DocumentBuilder documentBuilder() throws ParserConfigurationException {
+    DocumentBuilder builder = documentBuilders.get();
+    if (builder == null) {
+      synchronized (documentBuilderFactory) {
+        builder = documentBuilderFactory.newDocumentBuilder();
+      }
+      documentBuilders.set(builder);
+    } else {
+      builder.reset();
+    }
+    return builder;
+  }
+
+  /**
+   * Creates an empty DOM document.
+   */
+  public static Document newDocument() throws ParserConfigurationException {
+    return documentBuilder().newDocument();
+  }
+
+  /**
+   * Parses a String of XML to a DOM document.
+   */
+  public static Document parse(String xml)
+      throws IOException, ParserConfigurationException, SAXException {
+    return documentBuilder().parse(new InputSource(new StringReader(xml)));
+  }
+
+  /**
+   * Parses a stream of XML to a DOM document.
+   */
+  public static Document parse(InputStream xml)
+      throws IOException, ParserConfigurationException, SAXException {
+    return documentBuilder().parse(xml);
+  }
+
+  /**
+   * Serializes a DOM node to a String.
+   *
+   * @param node   the document or node to serialize
+   * @param indent whether to indent the XML, by two spaces
+   */
+  public static String write(Node node, boolean indent) throws TransformerException {
+    StringWriter writer = new StringWriter();
+    transformer(indent).transform(new DOMSource(node), new StreamResult(writer));
+    return writer.getBuffer().toString();
+  }
+
+  /**
+   * Creates a streaming XML writer, writing UTF-8 to the given stream.
+   */
+  public static XMLStreamWriter newStreamWriter(OutputStream out) throws XMLStreamException {
+    return outputFactory.createXMLStreamWriter(out, StandardCharsets.UTF_8.name());
+  }
+
+  private static Transformer transformer(boolean indent) throws TransformerException {
+    ThreadLocal<Transformer> pool = indent ? indentingTransformers : transformers;
+    Transformer transformer = pool.get();
+    if (transformer == null) {
+      synchronized (transformerFactory) {
+        transformer = transformerFactory.newTransformer();
+      }
+      if (indent) {
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+        transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
+      }
+      pool.set(transformer);
+    }
+    return transformer;
+  }
+}
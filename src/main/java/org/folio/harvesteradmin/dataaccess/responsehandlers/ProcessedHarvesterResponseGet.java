@@ -19,26 +19,29 @@ public class ProcessedHarvesterResponseGet extends ProcessedHarvesterResponse {
                                        String harvesterPath, String query) {
     this.harvesterPath = harvesterPath;
     if (response.succeeded()) {
-      bodyAsString = response.result().bodyAsString();
       int harvesterStatusCode = response.result().statusCode();
       statusCode = harvesterStatusCode;
       if (harvesterStatusCode == 200) {
-        jsonObject = HarvesterXml2Json.convertRecordSetToJson(bodyAsString);
-      } else if (harvesterStatusCode == 500
-          && bodyAsString.contains(
-              "An exception occurred while creating a query in EntityManager")) {
-        Matcher m = exceptionDescriptionPattern.matcher(bodyAsString);
-        if (m.find()) {
-          errorMessage = "Query failed: " + m.group(1).replaceAll("&#39;", "'");
+        // Converted straight from the response buffer, without an intermediate String
+        Buffer body = response.result().body();
+        jsonObject = body == null ? new JsonObject()
+            : HarvesterXml2Json.convertRecordSetToJson(body);
+      } else {
+        bodyAsString = response.result().bodyAsString();
+        if (harvesterStatusCode == 500 && bodyAsString != null && bodyAsString.contains(
+            "An exception occurred while creating a query in EntityManager")) {
+          Matcher m = exceptionDescriptionPattern.matcher(bodyAsString);
+          if (m.find()) {
+            errorMessage = "Query failed: " + m.group(1).replaceAll("&#39;", "'");
+          } else {
+            errorMessage = "Query failed: " + bodyAsString;
+          }
+          statusCode = 400;
         } else {
-          errorMessage = "Query failed: " + bodyAsString;
+          errorMessage =
+              "GET request to " + harvesterPath + (query != null ? " for query " + query : "")
+                  + " did not return OK (200) but " + statusCode + ": " + bodyAsString;
         }
-        statusCode = 400;
-        jsonObject = new JsonObject();
-      } else {
-        errorMessage =
-            "GET request to " + harvesterPath + (query != null ? " for query " + query : "")
-                + " did not return OK (200) but " + statusCode + ": " + bodyAsString;
         jsonObject = new JsonObject();
       }
     } else {
@@ -61,6 +61,15 @@ public class ProcessedHarvesterResponseGetById extends ProcessedHarvesterRespons
     }
   }
 
+  /**
+   * Constructor for a record that was already retrieved, ie from the cache.
+   */
+  public ProcessedHarvesterResponseGetById(JsonObject record) {
+    jsonObject = record;
+    bodyAsString = record.encode();
+    statusCode = 200;
+  }
+
   private boolean notFound(int originalStatusCode, String responseBody) {
     return (originalStatusCode == 500 && responseBody.contains("NullPointerException")
         && responseBody.contains("Converter.getId("));
@@ -74,7 +74,7 @@ public class EntityRootNames {
     return rootOfEntitiesByHarvesterPath.get(harvesterPath);
   }
 
-  public static Map<String, String> typeToEmbeddedTypeMap = new HashMap<>();
+  public static final Map<String, String> typeToEmbeddedTypeMap = new HashMap<>();
 
   static {
     typeToEmbeddedTypeMap.put("CustomTransformStep", "customTransformationStep");
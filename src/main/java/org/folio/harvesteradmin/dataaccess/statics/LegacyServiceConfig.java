@@ -6,6 +6,12 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 
+/**
+ * The module's configuration, read from environment variables and system properties.
+ * <br/><br/>
+ * The settings are static, and read by all verticle instances, so they are read once, under a
+ * lock, before the instances are deployed, and published through volatile fields.
+ */
 public class LegacyServiceConfig {
   private static final String HARVESTER_HOST_ENV_VAR = "harvester_host";
   private static final String HARVESTER_PORT_ENV_VAR = "harvester_port";
@@ -13,26 +19,67 @@ public class LegacyServiceConfig {
   private static final String HARVESTER_BASIC_AUTH_USERNAME = "harvester_auth_basic_username";
   private static final String HARVESTER_BASIC_AUTH_PASSWORD = "harvester_auth_basic_password";
   private static final String FILTER_BY_TENANT = "acl_filter_by_tenant";
+  private static final String HARVESTER_CLIENT_MAX_POOL_SIZE = "harvester_client_max_pool_size";
+  private static final String HARVESTER_CLIENT_IDLE_TIMEOUT = "harvester_client_idle_timeout";
+  private static final String HARVESTER_CLIENT_PIPELINING = "harvester_client_pipelining";
+  private static final String HARVESTER_CLIENT_MAX_IN_FLIGHT = "harvester_client_max_in_flight";
+  private static final String HARVESTER_CLIENT_RETRIES = "harvester_client_retries";
+  private static final String HARVESTER_CLIENT_RETRY_BACKOFF = "harvester_client_retry_backoff";
+  private static final String LOG_INSERT_BATCH_SIZE = "log_insert_batch_size";
+  private static final String LOG_STREAM_FETCH_SIZE = "log_stream_fetch_size";
+  private static final String LOG_TAIL_POLL_INTERVAL_MS = "log_tail_poll_interval_ms";
+  private static final String STATUS_POLL_INTERVAL_MS = "status_poll_interval_ms";
+  private static final String BULK_INSERT_MODE = "bulk_insert_mode";
+  private static final String HISTORY_RETENTION_MONTHS = "history_retention_months";
+  private static final String HISTORY_PURGE_BATCH_SIZE = "history_purge_batch_size";
+  private static final String CONFIG_CACHE_TTL_SECONDS = "config_cache_ttl_seconds";
+  private static final String CONFIG_CACHE_MAX_ENTRIES = "config_cache_max_entries";
+  private static final String XML_CONVERSION_OFFLOAD_THRESHOLD =
+      "xml_conversion_offload_threshold";
+  private static final String XML_CONVERSION_POOL_SIZE = "xml_conversion_pool_size";
+  private static final String VERTICLE_INSTANCES = "verticle_instances";
+  private static final String ID_GENERATOR_NODE = "id_generator_node";
   private static final String SERVICE_PORT_SYS_PROP = "port";
   private static final String SERVICE_PORT_DEFAULT = "8080";
 
-  public static Level logLevel;
-  public static int servicePort;
-  public static int harvesterPort;
-  public static String harvesterHost;
-  public static String harvesterProtocol;
-  public static String basicAuthUsername;
-  public static String basicAuthPassword;
-  public static boolean filterByTenant = true;
+  public static volatile Level logLevel;
+  public static volatile int servicePort;
+  public static volatile int harvesterPort;
+  public static volatile String harvesterHost;
+  public static volatile String harvesterProtocol;
+  public static volatile String basicAuthUsername;
+  public static volatile String basicAuthPassword;
+  public static volatile boolean filterByTenant = true;
+  public static volatile int harvesterClientMaxPoolSize = 20;
+  public static volatile int harvesterClientIdleTimeout = 60;
+  public static volatile boolean harvesterClientPipelining = false;
+  public static volatile int harvesterClientMaxInFlight = 10;
+  public static volatile int harvesterClientRetries = 2;
+  public static volatile int harvesterClientRetryBackoff = 250;
+  public static volatile int logInsertBatchSize = 1000;
+  public static volatile int logStreamFetchSize = 1000;
+  public static volatile int logTailPollIntervalMs = 2000;
+  public static volatile int statusPollIntervalMs = 2000;
+  public static volatile String bulkInsertMode = "unnest";
+  public static volatile int historyRetentionMonths = 0;
+  public static volatile int historyPurgeBatchSize = 100;
+  public static volatile int configCacheTtlSeconds = 30;
+  public static volatile int configCacheMaxEntries = 1000;
+  public static volatile int xmlConversionOffloadThreshold = 65536;
+  public static volatile int xmlConversionPoolSize = 4;
+  public static volatile int verticleInstances = 1;
+  public static volatile int idGeneratorNode = -1;
   private static final Logger logger = LogManager.getLogger("harvester-admin");
 
   /**
    * Constructor.
    */
   public LegacyServiceConfig() {
-    setServiceConfig();
-    if (! setHarvesterConfig()) {
-      logger.error("There is a problem with the setup of Harvester: " + this);
+    synchronized (LegacyServiceConfig.class) {
+      setServiceConfig();
+      if (! setHarvesterConfig()) {
+        logger.error("There is a problem with the setup of Harvester: " + this);
+      }
     }
   }
 
@@ -86,9 +133,57 @@ public class LegacyServiceConfig {
     filterByTenant =
         !System.getenv().getOrDefault(FILTER_BY_TENANT, "true")
             .equalsIgnoreCase("false");
+    harvesterClientMaxPoolSize = intOrDefault(HARVESTER_CLIENT_MAX_POOL_SIZE, 20, 1);
+    harvesterClientIdleTimeout = intOrDefault(HARVESTER_CLIENT_IDLE_TIMEOUT, 60, 1);
+    harvesterClientPipelining =
+        System.getenv().getOrDefault(HARVESTER_CLIENT_PIPELINING, "false")
+            .equalsIgnoreCase("true");
+    harvesterClientMaxInFlight = intOrDefault(HARVESTER_CLIENT_MAX_IN_FLIGHT, 10, 1);
+    harvesterClientRetries = intOrDefault(HARVESTER_CLIENT_RETRIES, 2, 0);
+    harvesterClientRetryBackoff = intOrDefault(HARVESTER_CLIENT_RETRY_BACKOFF, 250, 1);
+    logInsertBatchSize = intOrDefault(LOG_INSERT_BATCH_SIZE, 1000, 1);
+    logStreamFetchSize = intOrDefault(LOG_STREAM_FETCH_SIZE, 1000, 1);
+    logTailPollIntervalMs = intOrDefault(LOG_TAIL_POLL_INTERVAL_MS, 2000, 100);
+    statusPollIntervalMs = intOrDefault(STATUS_POLL_INTERVAL_MS, 2000, 100);
+    bulkInsertMode = System.getenv().getOrDefault(BULK_INSERT_MODE, "unnest").toLowerCase();
+    if (!bulkInsertMode.equals("unnest") && !bulkInsertMode.equals("batch")) {
+      logger.warn("Invalid value '" + bulkInsertMode + "' for " + BULK_INSERT_MODE
+          + ", using default unnest");
+      bulkInsertMode = "unnest";
+    }
+    historyRetentionMonths = intOrDefault(HISTORY_RETENTION_MONTHS, 0, 0);
+    historyPurgeBatchSize = intOrDefault(HISTORY_PURGE_BATCH_SIZE, 100, 1);
+    configCacheTtlSeconds = intOrDefault(CONFIG_CACHE_TTL_SECONDS, 30, 0);
+    configCacheMaxEntries = intOrDefault(CONFIG_CACHE_MAX_ENTRIES, 1000, 1);
+    xmlConversionOffloadThreshold = intOrDefault(XML_CONVERSION_OFFLOAD_THRESHOLD, 65536, 0);
+    xmlConversionPoolSize = intOrDefault(XML_CONVERSION_POOL_SIZE, 4, 1);
+    verticleInstances = intOrDefault(VERTICLE_INSTANCES, 1, 1);
+    idGeneratorNode = intOrDefault(ID_GENERATOR_NODE, -1, 0);
+    logger.info("Bulk inserts of log statements and failed records use mode " + bulkInsertMode);
+    logger.info("Harvester client connection pool: max size " + harvesterClientMaxPoolSize
+        + ", idle timeout " + harvesterClientIdleTimeout + "s, pipelining "
+        + (harvesterClientPipelining ? "on" : "off"));
     return configOk;
   }
 
+  private static int intOrDefault(String envVar, int defaultValue, int minimum) {
+    String value = System.getenv(envVar);
+    if (value == null || value.isEmpty()) {
+      return defaultValue;
+    }
+    try {
+      int number = Integer.parseInt(value);
+      if (number >= minimum) {
+        return number;
+      }
+    } catch (NumberFormatException ignored) {
+      // falls through to warning
+    }
+    logger.warn("Invalid value '" + value + "' for " + envVar + ", using default "
+        + defaultValue);
+    return defaultValue;
+  }
+
   public String toString() {
     return ManagementFactory.getRuntimeMXBean().getName() + " on port " + servicePort
         + ", proxying " + harvesterProtocol + "://" + harvesterHost + ":" + harvesterPort;
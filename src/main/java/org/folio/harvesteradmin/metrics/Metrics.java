@@ -0,0 +1,163 @@
+package org.folio.harvesteradmin.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.vertx.core.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.folio.harvesteradmin.dataaccess.ConfigRecordCache;
+import org.folio.harvesteradmin.dataaccess.XmlConversionExecutor;
+
+/**
+ * Holds the module's meters, in a registry that is scraped in Prometheus format on
+ * <code>/metrics</code>.
+ * <ul>
+ *   <li><code>harvester.requests</code> times requests to the legacy Harvester, tagged by method,
+ *   entity path and response status</li>
+ *   <li><code>storage.operations</code> times the operations on the module's database, tagged by
+ *   operation and outcome</li>
+ *   <li><code>xml.conversions</code> and <code>xml.conversion.size</code> measure conversions
+ *   between JSON and Harvester XML, tagged by direction and by where the conversion ran</li>
+ *   <li><code>log.lines.stored</code> and <code>log.lines.unparsed</code> count the ingest of
+ *   Harvester job logs</li>
+ * </ul>
+ */
+public class Metrics {
+
+  public static final String FROM_XML = "from-xml";
+  public static final String TO_XML = "to-xml";
+
+  private static final Pattern ID_SEGMENT = Pattern.compile("/[0-9]+(\\.xml)?(?=/|$)");
+  private static final PrometheusMeterRegistry registry = createRegistry();
+  private static final Counter storedLogLines = Counter.builder("log.lines.stored")
+      .description("Log statements of Harvester jobs stored in the module's database")
+      .register(registry);
+  private static final Counter unparsedLogLines = Counter.builder("log.lines.unparsed")
+      .description("Lines of Harvester job logs that could not be parsed as log statements")
+      .register(registry);
+
+  private Metrics() {
+  }
+
+  private static PrometheusMeterRegistry createRegistry() {
+    PrometheusMeterRegistry meterRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+    meterRegistry.config().commonTags("application", "mod-harvester-admin");
+    Gauge.builder("xml.conversion.queue", XmlConversionExecutor::queued)
+        .description("XML conversions waiting for a worker")
+        .register(meterRegistry);
+    Gauge.builder("xml.conversion.running", XmlConversionExecutor::running)
+        .description("XML conversions running on the worker pool")
+        .register(meterRegistry);
+    FunctionCounter.builder("config.cache.hits", ConfigRecordCache.class,
+        cache -> ConfigRecordCache.hits())
+        .description("Look-ups of config records found in the cache")
+        .register(meterRegistry);
+    FunctionCounter.builder("config.cache.misses", ConfigRecordCache.class,
+        cache -> ConfigRecordCache.misses())
+        .description("Look-ups of config records not found in the cache")
+        .register(meterRegistry);
+    return meterRegistry;
+  }
+
+  /**
+   * Gets the registry of the module's meters.
+   */
+  public static PrometheusMeterRegistry registry() {
+    return registry;
+  }
+
+  /**
+   * Records the time of a request to the Harvester.
+   *
+   * @param method HTTP method
+   * @param uri    the requested URI, reduced to the entity path for the tag
+   * @param status the response status code
+   * @param nanos  duration of the request
+   */
+  public static void recordHarvesterRequest(String method, String uri, String status,
+                                            long nanos) {
+    Timer.builder("harvester.requests")
+        .description("Requests to the legacy Harvester")
+        .tag("method", method)
+        .tag("path", entityPath(uri))
+        .tag("status", status)
+        .register(registry)
+        .record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Times an operation on the module's database, from now until the operation completes. That's
+   * practically from the start of the operation, provided it was started in the same turn of the
+   * event loop, since its result can't be handled before the turn is over.
+   *
+   * @param operation name of the operation, for the tag
+   * @param execution the operation, just started
+   * @return the outcome of the operation
+   */
+  public static <T> Future<T> timeStorage(String operation, Future<T> execution) {
+    long started = System.nanoTime();
+    return execution.onComplete(outcome ->
+        Timer.builder("storage.operations")
+            .description("Operations on the module's database")
+            .tag("operation", operation)
+            .tag("outcome", outcome.succeeded() ? "success" : "failure")
+            .register(registry)
+            .record(System.nanoTime() - started, TimeUnit.NANOSECONDS));
+  }
+
+  /**
+   * Records the size and time of a conversion between JSON and Harvester XML.
+   *
+   * @param direction {@link #FROM_XML} or {@link #TO_XML}
+   * @param executor  where the conversion ran, "inline" or "worker"
+   * @param size      size of the converted payload
+   * @param nanos     duration of the conversion
+   */
+  public static void recordConversion(String direction, String executor, int size, long nanos) {
+    Timer.builder("xml.conversions")
+        .description("Conversions between JSON and Harvester XML")
+        .tag("direction", direction)
+        .tag("executor", executor)
+        .register(registry)
+        .record(nanos, TimeUnit.NANOSECONDS);
+    DistributionSummary.builder("xml.conversion.size")
+        .description("Sizes of payloads converted between JSON and Harvester XML")
+        .baseUnit("bytes")
+        .tag("direction", direction)
+        .tag("executor", executor)
+        .register(registry)
+        .record(size);
+  }
+
+  /**
+   * Counts log statements stored.
+   */
+  public static void countStoredLogLines(int lines) {
+    storedLogLines.increment(lines);
+  }
+
+  /**
+   * Counts a log line that could not be parsed.
+   */
+  public static void countUnparsedLogLine() {
+    unparsedLogLines.increment();
+  }
+
+  /**
+   * Reduces a Harvester URI to its entity path, by dropping the query and replacing record IDs,
+   * so that the path tag has a small set of values.
+   */
+  static String entityPath(String uri) {
+    if (uri == null) {
+      return "";
+    }
+    int query = uri.indexOf('?');
+    String path = query < 0 ? uri : uri.substring(0, query);
+    return ID_SEGMENT.matcher(path).replaceAll("/{id}");
+  }
+}
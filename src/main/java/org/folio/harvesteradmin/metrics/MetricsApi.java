@@ -0,0 +1,23 @@
+package org.folio.harvesteradmin.metrics;
+
+import io.prometheus.client.exporter.common.TextFormat;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.ext.web.Router;
+import org.folio.tlib.RouterCreator;
+
+/**
+ * Serves the module's metrics in Prometheus text format on <code>/metrics</code>. Like the health
+ * check, this is for calling the module directly, not through Okapi.
+ */
+public class MetricsApi implements RouterCreator {
+
+  @Override
+  public Future<Router> createRouter(Vertx vertx) {
+    Router router = Router.router(vertx);
+    router.get("/metrics").handler(ctx -> ctx.response()
+        .putHeader("Content-Type", TextFormat.CONTENT_TYPE_004)
+        .end(Metrics.registry().scrape()));
+    return Future.succeededFuture(router);
+  }
+}
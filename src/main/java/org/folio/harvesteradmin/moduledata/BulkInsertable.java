@@ -0,0 +1,21 @@
+package org.folio.harvesteradmin.moduledata;
+
+import io.vertx.sqlclient.Tuple;
+import java.util.List;
+
+/**
+ * Entity that can be inserted many rows at a time with a single statement, passing each column
+ * as an array parameter that is unnested into rows.
+ */
+public interface BulkInsertable {
+
+  /**
+   * INSERT ... SELECT FROM UNNEST(...) statement with one array parameter per column.
+   */
+  String makeBulkInsertSql(String schema);
+
+  /**
+   * Gets the column arrays for the entities, in the order of the parameters of the statement.
+   */
+  Tuple makeBulkInsertTuple(List<StoredEntity> entities);
+}
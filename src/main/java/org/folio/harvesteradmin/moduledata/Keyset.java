@@ -0,0 +1,127 @@
+package org.folio.harvesteradmin.moduledata;
+
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonArray;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Ordering of a result set on unique keys, for paging by cursor rather than by offset.
+ * <br/><br/>
+ * A cursor is an opaque token holding the key values of the last row of a page. The next page is
+ * selected with a row comparison on the keys, ie <code>WHERE (started, id) &lt; (...)</code>,
+ * which an index on the keys resolves without reading the skipped rows.
+ */
+public class Keyset {
+
+  public static final Keyset PREVIOUS_JOBS = new Keyset(true,
+      new Key(HarvestJobField.STARTED.columnName(), KeyType.TIMESTAMP),
+      new Key(HarvestJobField.ID.columnName(), KeyType.UUID));
+  public static final Keyset LOG_LINES = new Keyset(false,
+      new Key(LogLine.LogLineField.SEQUENCE_NUMBER.columnName(), KeyType.INTEGER));
+  public static final Keyset FAILED_RECORDS = new Keyset(false,
+      new Key(RecordFailure.Column.time_stamp.name(), KeyType.TIMESTAMP),
+      new Key(RecordFailure.Column.id.name(), KeyType.UUID));
+
+  private final boolean descending;
+  private final List<Key> keys;
+
+  enum KeyType {
+    TIMESTAMP,
+    UUID,
+    INTEGER
+  }
+
+  private Keyset(boolean descending, Key... keys) {
+    this.descending = descending;
+    this.keys = Arrays.asList(keys);
+  }
+
+  /**
+   * ORDER BY clause on the keys.
+   */
+  public String orderBy() {
+    return " ORDER BY " + keys.stream()
+        .map(key -> key.column + (descending ? " DESC" : ""))
+        .collect(Collectors.joining(", "));
+  }
+
+  /**
+   * WHERE condition selecting the rows after the cursor.
+   *
+   * @param cursor token from a previous page
+   * @throws IllegalArgumentException if the cursor is not a valid cursor for this key set
+   */
+  public String whereAfter(String cursor) {
+    JsonArray values;
+    try {
+      values = new JsonArray(
+          new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+    } catch (IllegalArgumentException | DecodeException e) {
+      throw new IllegalArgumentException("Invalid cursor: " + cursor);
+    }
+    if (values.size() != keys.size()) {
+      throw new IllegalArgumentException("Invalid cursor: " + cursor);
+    }
+    StringBuilder columns = new StringBuilder();
+    StringBuilder literals = new StringBuilder();
+    for (int i = 0; i < keys.size(); i++) {
+      if (i > 0) {
+        columns.append(", ");
+        literals.append(", ");
+      }
+      columns.append(keys.get(i).column);
+      literals.append(keys.get(i).literal(values.getValue(i)));
+    }
+    return "(" + columns + ") " + (descending ? "<" : ">") + " (" + literals + ")";
+  }
+
+  /**
+   * Creates the cursor for a row with the given key values, in the order of the keys.
+   */
+  public String cursor(Object... values) {
+    JsonArray array = new JsonArray();
+    for (Object value : values) {
+      array.add(String.valueOf(value));
+    }
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(array.encode().getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static class Key {
+    private final String column;
+    private final KeyType type;
+
+    Key(String column, KeyType type) {
+      this.column = column;
+      this.type = type;
+    }
+
+    /**
+     * Gets the value as an SQL literal, after validating it by its type.
+     */
+    String literal(Object value) {
+      if (!(value instanceof String)) {
+        throw new IllegalArgumentException("Invalid cursor value for " + column);
+      }
+      try {
+        switch (type) {
+          case TIMESTAMP:
+            return "'" + LocalDateTime.parse((String) value) + "'::TIMESTAMP";
+          case UUID:
+            return "'" + UUID.fromString((String) value) + "'::UUID";
+          default:
+            return Integer.toString(Integer.parseInt((String) value));
+        }
+      } catch (DateTimeParseException | IllegalArgumentException e) {
+        throw new IllegalArgumentException("Invalid cursor value for " + column + ": " + value);
+      }
+    }
+  }
+}
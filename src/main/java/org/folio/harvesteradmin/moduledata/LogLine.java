@@ -1,20 +1,20 @@
 package org.folio.harvesteradmin.moduledata;
 
 import io.vertx.core.json.JsonObject;
+import io.vertx.sqlclient.Tuple;
 import io.vertx.sqlclient.templates.RowMapper;
 import io.vertx.sqlclient.templates.TupleMapper;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import org.folio.harvesteradmin.modulestorage.Storage;
 import org.folio.tlib.postgres.PgCqlDefinition;
 import org.folio.tlib.postgres.cqlfield.PgCqlFieldAlwaysMatches;
 
-public class LogLine extends StoredEntity {
+public class LogLine extends StoredEntity implements BulkInsertable {
 
   /**
    * Entity properties.
@@ -28,8 +28,6 @@ public class LogLine extends StoredEntity {
   private int sequenceNumber;
 
   private static final String DATE_FORMAT = "YYYY-MM-DD HH24:MI:SS,MS";
-  private static final Pattern logPattern // (timestamp) (level) (job) (statement)
-      = Pattern.compile("([0-9\\- :,]{23}) ([A-Z]{4,5}) {1,2}(\\[.*?\\(.*?\\)]) (.*)");
 
   public enum LogLineField implements Field {
     ID("id", "id", PgColumn.Type.UUID, false, false, true),
@@ -101,15 +99,9 @@ public class LogLine extends StoredEntity {
    * Constructor.
    */
   public LogLine(UUID harvestJobId, String line, int sequenceNumber) {
-
-    Matcher matcher = logPattern.matcher(line);
-    if (matcher.matches()) {
-      id = UUID.randomUUID();
+    if (parse(line)) {
+      id = TimeOrderedUuid.generate();
       this.harvestJobId = harvestJobId;
-      this.timeStamp = matcher.group(1).trim();
-      this.logLevel = matcher.group(2).trim();
-      this.jobLabel = matcher.group(3);
-      this.line = matcher.group(4);
       this.sequenceNumber = sequenceNumber;
     } else {
       this.id = this.harvestJobId = null;
@@ -117,29 +109,106 @@ public class LogLine extends StoredEntity {
     }
   }
 
+  /**
+   * Splits a Harvester log line into time stamp, level, job label and statement. Accepts exactly
+   * the lines matched by <code>([0-9\- :,]{23}) ([A-Z]{4,5}) {1,2}(\[.*?\(.*?\)]) (.*)</code>,
+   * but scans the line once instead of backtracking through lazy quantifiers.
+   *
+   * @return true if the line could be parsed
+   */
+  private boolean parse(String logLine) {
+    int length = logLine.length();
+    for (int i = 0; i < length; i++) {
+      if (isLineTerminator(logLine.charAt(i))) {
+        return false;
+      }
+    }
+    // time stamp (23 characters) and a space
+    if (length < 24 || logLine.charAt(23) != ' ') {
+      return false;
+    }
+    for (int i = 0; i < 23; i++) {
+      if (!isTimeStampCharacter(logLine.charAt(i))) {
+        return false;
+      }
+    }
+    // level (4 or 5 upper case letters) and one or two spaces
+    int levelEnd = 24;
+    while (levelEnd < length && isUpperCaseLetter(logLine.charAt(levelEnd))) {
+      levelEnd++;
+    }
+    if (levelEnd - 24 < 4 || levelEnd - 24 > 5 || levelEnd == length
+        || logLine.charAt(levelEnd) != ' ') {
+      return false;
+    }
+    int labelStart = levelEnd + 1;
+    if (labelStart < length && logLine.charAt(labelStart) == ' ') {
+      labelStart++;
+    }
+    // job label: from '[' until the first ')] ' after the first '('
+    if (labelStart >= length || logLine.charAt(labelStart) != '[') {
+      return false;
+    }
+    int openParenthesis = logLine.indexOf('(', labelStart + 1);
+    if (openParenthesis < 0) {
+      return false;
+    }
+    int labelEnd = logLine.indexOf(")] ", openParenthesis + 1);
+    if (labelEnd < 0) {
+      return false;
+    }
+    this.timeStamp = logLine.substring(0, 23).trim();
+    this.logLevel = logLine.substring(24, levelEnd);
+    this.jobLabel = logLine.substring(labelStart, labelEnd + 2);
+    this.line = logLine.substring(labelEnd + 3);
+    return true;
+  }
+
+  private static boolean isTimeStampCharacter(char c) {
+    return (c >= '0' && c <= '9') || c == '-' || c == ' ' || c == ':' || c == ',';
+  }
+
+  private static boolean isUpperCaseLetter(char c) {
+    return c >= 'A' && c <= 'Z';
+  }
+
+  /**
+   * The characters that '.' doesn't match in a regular expression.
+   */
+  private static boolean isLineTerminator(char c) {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+
   public UUID getId() {
     return id;
   }
 
+  public int getSequenceNumber() {
+    return sequenceNumber;
+  }
+
   public static LogLine entity() {
     return new LogLine();
   }
 
   /**
-   * CREATE TABLE SQL template.
+   * CREATE TABLE SQL template. The table is partitioned by month of the time stamp.
    */
   public String makeCreateTableSql(String schema) {
     return  "CREATE TABLE IF NOT EXISTS " + schema + "." + Storage.Table.log_statement
         + "("
-        + LogLineField.ID.columnName() + " UUID PRIMARY KEY, "
+        + LogLineField.ID.columnName() + " UUID NOT NULL, "
         + LogLineField.HARVEST_JOB_ID.columnName() + " UUID NOT NULL REFERENCES "
-        + schema + "." + Storage.Table.harvest_job + "(" + HarvestJobField.ID.columnName() + "), "
+        + schema + "." + Storage.Table.harvest_job + "(" + HarvestJobField.ID.columnName() + ")"
+        + " ON DELETE CASCADE, "
         + LogLineField.SEQUENCE_NUMBER.columnName() + " INTEGER NOT NULL, "
         + LogLineField.TIME_STAMP.columnName() + " TIMESTAMP NOT NULL, "
         + LogLineField.LOG_LEVEL.columnName() + " TEXT NOT NULL, "
         + LogLineField.JOB_LABEL.columnName() + " TEXT NOT NULL, "
-        + LogLineField.LOG_STATEMENT.columnName() + " TEXT NOT NULL"
-        + ")";
+        + LogLineField.LOG_STATEMENT.columnName() + " TEXT NOT NULL, "
+        + "PRIMARY KEY (" + LogLineField.ID.columnName() + ", "
+        + LogLineField.TIME_STAMP.columnName() + ")"
+        + ") PARTITION BY RANGE (" + LogLineField.TIME_STAMP.columnName() + ")";
   }
 
   @Override
@@ -148,6 +217,7 @@ public class LogLine extends StoredEntity {
       LogLine logLine = new LogLine();
       logLine.id = row.getUUID(LogLineField.ID.columnName());
       logLine.harvestJobId = row.getUUID(LogLineField.HARVEST_JOB_ID.columnName());
+      logLine.sequenceNumber = row.getInteger(LogLineField.SEQUENCE_NUMBER.columnName());
       logLine.timeStamp = row.getLocalDateTime(LogLineField.TIME_STAMP.columnName()).toString();
       logLine.logLevel = row.getString(LogLineField.LOG_LEVEL.columnName());
       logLine.jobLabel = row.getString(LogLineField.JOB_LABEL.columnName());
@@ -181,6 +251,55 @@ public class LogLine extends StoredEntity {
         + ")";
   }
 
+  @Override
+  public String makeBulkInsertSql(String schema) {
+    return "INSERT INTO " + schema + "." + Storage.Table.log_statement
+        + " ("
+        + LogLineField.ID.columnName() + ", "
+        + LogLineField.HARVEST_JOB_ID.columnName() + ", "
+        + LogLineField.SEQUENCE_NUMBER.columnName() + ", "
+        + LogLineField.TIME_STAMP.columnName() + ", "
+        + LogLineField.LOG_LEVEL.columnName() + ", "
+        + LogLineField.JOB_LABEL.columnName() + ", "
+        + LogLineField.LOG_STATEMENT.columnName()
+        + ")"
+        + " SELECT id, harvest_job_id, seq, TO_TIMESTAMP(time_stamp,'" + DATE_FORMAT + "'), "
+        + "        log_level, job_label, statement"
+        + " FROM UNNEST($1::UUID[], $2::UUID[], $3::INTEGER[], $4::TEXT[], $5::TEXT[], "
+        + "             $6::TEXT[], $7::TEXT[])"
+        + " AS t(id, harvest_job_id, seq, time_stamp, log_level, job_label, statement)";
+  }
+
+  @Override
+  public Tuple makeBulkInsertTuple(List<StoredEntity> entities) {
+    int size = entities.size();
+    UUID[] ids = new UUID[size];
+    UUID[] harvestJobIds = new UUID[size];
+    Integer[] sequenceNumbers = new Integer[size];
+    String[] timeStamps = new String[size];
+    String[] logLevels = new String[size];
+    String[] jobLabels = new String[size];
+    String[] lines = new String[size];
+    for (int i = 0; i < size; i++) {
+      LogLine logLine = (LogLine) entities.get(i);
+      ids[i] = logLine.id;
+      harvestJobIds[i] = logLine.harvestJobId;
+      sequenceNumbers[i] = logLine.sequenceNumber;
+      timeStamps[i] = logLine.timeStamp;
+      logLevels[i] = logLine.logLevel;
+      jobLabels[i] = logLine.jobLabel;
+      lines[i] = logLine.line;
+    }
+    return Tuple.tuple()
+        .addArrayOfUUID(ids)
+        .addArrayOfUUID(harvestJobIds)
+        .addArrayOfInteger(sequenceNumbers)
+        .addArrayOfString(timeStamps)
+        .addArrayOfString(logLevels)
+        .addArrayOfString(jobLabels)
+        .addArrayOfString(lines);
+  }
+
   /**
    * Creates a TupleMapper for input mapping.
    */
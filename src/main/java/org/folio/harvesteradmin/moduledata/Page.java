@@ -0,0 +1,35 @@
+package org.folio.harvesteradmin.moduledata;
+
+import java.util.List;
+
+/**
+ * A page of records retrieved from the module's storage, with the total number of records
+ * matching the query if it was counted with the page.
+ */
+public class Page<T> {
+
+  private final List<T> records;
+  private final Integer totalRecords;
+
+  /**
+   * Constructor.
+   *
+   * @param records      the records on the page
+   * @param totalRecords the number of records matching the query, or null if not counted
+   */
+  public Page(List<T> records, Integer totalRecords) {
+    this.records = records;
+    this.totalRecords = totalRecords;
+  }
+
+  public List<T> getRecords() {
+    return records;
+  }
+
+  /**
+   * Gets the number of records matching the query, if counted with the page, otherwise null.
+   */
+  public Integer getTotalRecords() {
+    return totalRecords;
+  }
+}
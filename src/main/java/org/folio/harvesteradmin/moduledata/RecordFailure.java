@@ -2,9 +2,11 @@ package org.folio.harvesteradmin.moduledata;
 
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.sqlclient.Tuple;
 import io.vertx.sqlclient.templates.RowMapper;
 import io.vertx.sqlclient.templates.TupleMapper;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -20,7 +22,7 @@ import org.folio.tlib.postgres.cqlfield.PgCqlFieldTimestamp;
 /** Logic for persisting in RECORD_FAILURE and retrieving from RECORD_FAILURE_VIEW.
  *
  */
-public class RecordFailure extends StoredEntity {
+public class RecordFailure extends StoredEntity implements BulkInsertable {
 
   private UUID id;
   private Long harvestableId;
@@ -70,7 +72,7 @@ public class RecordFailure extends StoredEntity {
    */
   public static RecordFailure fromLegacyHarvesterJson(UUID harvestJobId, JsonObject json) {
     RecordFailure recordFailure = new RecordFailure();
-    recordFailure.id = UUID.randomUUID();
+    recordFailure.id = TimeOrderedUuid.generate();
     recordFailure.harvestJobId = harvestJobId;
     recordFailure.recordNumber = json.getString("recordNumber").replace(".xml", "");
     String[] legacyDate = json.getString("timeStamp").split(" ");
@@ -83,20 +85,22 @@ public class RecordFailure extends StoredEntity {
   }
 
   /**
-   * CREATE TABLE statement.
+   * CREATE TABLE statement. The table is partitioned by month of the time stamp.
    */
   public String makeCreateTableSql(String schema) {
     return "CREATE TABLE IF NOT EXISTS " + schema + "." + Storage.Table.record_failure
         + "("
-        + Column.id + " UUID PRIMARY KEY, "
+        + Column.id + " UUID NOT NULL, "
         + Column.harvest_job_id + " UUID NOT NULL REFERENCES "
-        + schema + "." + Storage.Table.harvest_job + "(" + HarvestJobField.ID.columnName() + "), "
+        + schema + "." + Storage.Table.harvest_job + "(" + HarvestJobField.ID.columnName() + ")"
+        + " ON DELETE CASCADE, "
         + Column.record_number + " TEXT, "
-        + Column.time_stamp + " TIMESTAMP, "
+        + Column.time_stamp + " TIMESTAMP NOT NULL, "
         + Column.record_errors + " JSONB NOT NULL, "
         + Column.original_record + " TEXT NOT NULL, "
-        + Column.transformed_record + " JSONB NOT NULL"
-        + ")";
+        + Column.transformed_record + " JSONB NOT NULL, "
+        + "PRIMARY KEY (" + Column.id + ", " + Column.time_stamp + ")"
+        + ") PARTITION BY RANGE (" + Column.time_stamp + ")";
   }
 
   /**
@@ -142,6 +146,58 @@ public class RecordFailure extends StoredEntity {
         + ")";
   }
 
+  @Override
+  public String makeBulkInsertSql(String schema) {
+    return "INSERT INTO " + schema + "." + Storage.Table.record_failure
+        + " ("
+        + Column.id + ", "
+        + Column.harvest_job_id + ", "
+        + Column.record_number + ", "
+        + Column.time_stamp + ", "
+        + Column.record_errors + ", "
+        + Column.original_record + ", "
+        + Column.transformed_record
+        + ")"
+        + " SELECT id, harvest_job_id, record_number, "
+        + "        TO_TIMESTAMP(time_stamp,'" + DATE_FORMAT + "'), "
+        + "        record_errors::JSONB, original_record, transformed_record::JSONB"
+        + " FROM UNNEST($1::UUID[], $2::UUID[], $3::TEXT[], $4::TEXT[], $5::TEXT[], "
+        + "             $6::TEXT[], $7::TEXT[])"
+        + " AS t(id, harvest_job_id, record_number, time_stamp, record_errors, original_record, "
+        + "      transformed_record)";
+  }
+
+  @Override
+  public Tuple makeBulkInsertTuple(List<StoredEntity> entities) {
+    int size = entities.size();
+    UUID[] ids = new UUID[size];
+    UUID[] harvestJobIds = new UUID[size];
+    String[] recordNumbers = new String[size];
+    String[] timeStamps = new String[size];
+    String[] recordErrorsArray = new String[size];
+    String[] originalRecords = new String[size];
+    String[] transformedRecords = new String[size];
+    for (int i = 0; i < size; i++) {
+      RecordFailure entity = (RecordFailure) entities.get(i);
+      ids[i] = entity.id;
+      harvestJobIds[i] = entity.harvestJobId;
+      recordNumbers[i] = entity.recordNumber;
+      timeStamps[i] = entity.timeStamp;
+      recordErrorsArray[i] = entity.recordErrors == null ? null : entity.recordErrors.encode();
+      originalRecords[i] = entity.originalRecord;
+      transformedRecords[i] =
+          entity.transformedRecord == null ? null : entity.transformedRecord.encode();
+    }
+    return Tuple.tuple()
+        .addArrayOfUUID(ids)
+        .addArrayOfUUID(harvestJobIds)
+        .addArrayOfString(recordNumbers)
+        .addArrayOfString(timeStamps)
+        .addArrayOfString(recordErrorsArray)
+        .addArrayOfString(originalRecords)
+        .addArrayOfString(transformedRecords);
+  }
+
   @Override
   public TupleMapper<StoredEntity> getTupleMapper() {
     return TupleMapper.mapper(
@@ -181,6 +237,14 @@ public class RecordFailure extends StoredEntity {
     return map;
   }
 
+  public UUID getId() {
+    return id;
+  }
+
+  public String getTimeStamp() {
+    return timeStamp;
+  }
+
   /**
    * Gets JSON representation.
    */
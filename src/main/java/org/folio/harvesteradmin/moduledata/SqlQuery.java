@@ -1,16 +1,25 @@
 package org.folio.harvesteradmin.moduledata;
 
 import io.vertx.ext.web.validation.RequestParameter;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
 
 public class SqlQuery {
 
+  public static final String TOTAL_RECORDS_COLUMN = "total_records";
+
   private final String select;
   private final String from;
   private String where;
-  private final String orderBy;
-  private final String offset;
+  private String orderBy;
+  private String offset;
   private final String limit;
   private String defaultLimit = null;
+  private Keyset keyset = null;
+  private String afterCondition = "";
+  private TotalRecords totalRecords = TotalRecords.none;
 
   /**
    * Constructor.
@@ -34,15 +43,129 @@ public class SqlQuery {
         + where;
   }
 
+  /**
+   * Gets the query plan in JSON, which has the planner's estimate of the number of rows the
+   * counting SQL would count.
+   */
+  public String getEstimatingSql() {
+    return "EXPLAIN (FORMAT JSON) SELECT 1 "
+        + from
+        + where;
+  }
+
+  /**
+   * Gets the WHERE clause, without any cursor condition, or an empty string if there is none.
+   */
+  public String getWhere() {
+    return where;
+  }
+
   /**
    * Gets SQL with limits applied.
    */
   public String getQueryWithLimits() {
-    return select
+    return (countsWithPage()
+        ? select.trim() + ", COUNT(*) OVER () AS " + TOTAL_RECORDS_COLUMN + " "
+        : select)
         + from
-        + where
+        + whereWithCursor()
         + orderBy
-        + limits(offset, (limit == null ? defaultLimit : limit));
+        + limits(offset, getLimit());
+  }
+
+  /**
+   * Orders the result on the key set, so that the next page can be selected by cursor, unless
+   * the query has a sort order of its own. With a cursor, the page starts after the row that the
+   * cursor points to, and any offset is ignored.
+   *
+   * @param keyset the unique keys to order on
+   * @param after  optional cursor from the previous page
+   * @throws IllegalArgumentException if the cursor is invalid, or the query has its own sort order
+   */
+  public SqlQuery withKeyset(Keyset keyset, String after) {
+    boolean hasCursor = after != null && !after.isEmpty();
+    if (!orderBy.isEmpty()) {
+      if (hasCursor) {
+        throw new IllegalArgumentException("Cannot page by cursor when sorting with 'sortBy'");
+      }
+      return this;
+    }
+    this.keyset = keyset;
+    this.orderBy = keyset.orderBy();
+    if (hasCursor) {
+      afterCondition = keyset.whereAfter(after);
+      offset = null;
+    }
+    return this;
+  }
+
+  /**
+   * Sets how to count the total number of records matching the query.
+   */
+  public SqlQuery withTotalRecords(TotalRecords totalRecords) {
+    this.totalRecords = totalRecords;
+    return this;
+  }
+
+  /**
+   * Gets how to count the total number of records matching the query.
+   */
+  public TotalRecords getTotalRecords() {
+    return totalRecords;
+  }
+
+  /**
+   * Tells if the exact total is selected with the page of records, in the column
+   * {@link #TOTAL_RECORDS_COLUMN}, rather than counted in a query of its own. The window count
+   * is taken before the offset and limit are applied, but after the cursor condition, so with a
+   * cursor the total must be counted separately.
+   */
+  public boolean countsWithPage() {
+    return totalRecords == TotalRecords.exact && afterCondition.isEmpty();
+  }
+
+  /**
+   * Gets the key set the result is ordered on, if any.
+   */
+  public Keyset getKeyset() {
+    return keyset;
+  }
+
+  /**
+   * Tells if there may be more rows after a page of the given size, that can be retrieved with
+   * a cursor.
+   */
+  public boolean hasNextPage(int rowsOnPage) {
+    String pageSize = getLimit();
+    return keyset != null && pageSize != null && !pageSize.isEmpty() && rowsOnPage > 0
+        && Integer.toString(rowsOnPage).equals(pageSize.trim());
+  }
+
+  /**
+   * Gets the WHERE clause, with the condition selecting rows after the cursor, if any. The cursor
+   * condition is not part of the counting SQL.
+   */
+  private String whereWithCursor() {
+    if (afterCondition.isEmpty()) {
+      return where;
+    } else if (where.trim().isEmpty()) {
+      return " WHERE " + afterCondition;
+    } else {
+      // the existing clause is parenthesized since it may contain ORs
+      return " WHERE (" + where.trim().substring("where".length()) + ") AND " + afterCondition;
+    }
+  }
+
+  /**
+   * Tells if the query has a limit, set by the client or by default.
+   */
+  public boolean hasLimit() {
+    String pageSize = getLimit();
+    return pageSize != null && !pageSize.isEmpty();
+  }
+
+  private String getLimit() {
+    return limit == null ? defaultLimit : limit;
   }
 
   /**
@@ -59,6 +182,53 @@ public class SqlQuery {
     return this;
   }
 
+  /**
+   * Adds ANDed condition on a timestamp column, from and until the given dates or date-times,
+   * either of which may be omitted. The values are validated as ISO dates or date-times, with or
+   * without an offset, and put in the SQL as they are parsed.
+   *
+   * @param column the timestamp column
+   * @param from   optional date or date-time to select from, inclusive
+   * @param until  optional date or date-time to select until, inclusive
+   * @throws IllegalArgumentException if a value is not a date or date-time
+   */
+  public SqlQuery withTimeRange(String column, String from, String until) {
+    String timeRange = null;
+    if (present(from) && present(until)) {
+      timeRange = column + " >= " + timestampLiteral("from", from)
+          + " AND " + column + " <= " + timestampLiteral("until", until);
+    } else if (present(from)) {
+      timeRange = column + " >= " + timestampLiteral("from", from);
+    } else if (present(until)) {
+      timeRange = column + " <= " + timestampLiteral("until", until);
+    }
+    return withAdditionalWhereClause(timeRange);
+  }
+
+  private static boolean present(String value) {
+    return value != null && !value.isEmpty();
+  }
+
+  /**
+   * Gets a date or date-time as an SQL literal, after validating it.
+   */
+  static String timestampLiteral(String parameter, String value) {
+    String dateTime = value.trim().replaceFirst(" ", "T");
+    try {
+      if (!dateTime.contains("T")) {
+        return "'" + LocalDate.parse(dateTime) + "'";
+      } else if (dateTime.endsWith("Z") || dateTime.lastIndexOf('+') > 0
+          || dateTime.lastIndexOf('-') > dateTime.indexOf('T')) {
+        return "'" + OffsetDateTime.parse(dateTime) + "'";
+      } else {
+        return "'" + LocalDateTime.parse(dateTime) + "'";
+      }
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException("Invalid date or date-time for '" + parameter + "': "
+          + value);
+    }
+  }
+
   public SqlQuery withDefaultLimit(String defaultLimit) {
     this.defaultLimit = defaultLimit;
     return this;
@@ -0,0 +1,38 @@
+package org.folio.harvesteradmin.moduledata;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates version 7 UUIDs: a 48 bit Unix millisecond timestamp followed by random bits.
+ * <br/><br/>
+ * The random bits come from a thread-local pseudo-random generator rather than the SecureRandom
+ * behind UUID.randomUUID(), which is considerably cheaper when IDs are needed for each of millions
+ * of log lines. As the IDs start with the time of creation, rows inserted together also end up
+ * close together in the primary key index.
+ */
+public class TimeOrderedUuid {
+
+  private TimeOrderedUuid() {
+  }
+
+  /**
+   * Creates a UUID for the current time.
+   */
+  public static UUID generate() {
+    return generate(System.currentTimeMillis());
+  }
+
+  /**
+   * Creates a UUID for the given Unix time in milliseconds.
+   */
+  public static UUID generate(long epochMillis) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    long mostSignificantBits = (epochMillis & 0xFFFFFFFFFFFFL) << 16
+        | 0x7000L // version 7
+        | (random.nextLong() & 0x0FFFL);
+    long leastSignificantBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL)
+        | 0x8000000000000000L; // IETF variant
+    return new UUID(mostSignificantBits, leastSignificantBits);
+  }
+}
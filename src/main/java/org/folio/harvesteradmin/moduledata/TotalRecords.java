@@ -0,0 +1,39 @@
+package org.folio.harvesteradmin.moduledata;
+
+import io.vertx.ext.web.RoutingContext;
+
+/**
+ * How to count the total number of records matching a query, as requested with the parameter
+ * <code>totalRecords</code>.
+ */
+public enum TotalRecords {
+  /**
+   * An exact count, taken together with the page of records, with <code>COUNT(*) OVER ()</code>,
+   * when possible.
+   */
+  exact,
+  /**
+   * The query planner's estimate of the number of rows, or an exact count if the estimate is
+   * small.
+   */
+  estimated,
+  /**
+   * No count.
+   */
+  none;
+
+  /**
+   * Gets the counting mode requested, or exact if none was requested.
+   */
+  public static TotalRecords fromRequest(RoutingContext routingContext) {
+    String mode = routingContext.request().getParam("totalRecords");
+    if (mode == null || mode.isEmpty()) {
+      return exact;
+    }
+    try {
+      return valueOf(mode);
+    } catch (IllegalArgumentException e) {
+      return exact;
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package org.folio.harvesteradmin.modulestorage;
+
+import io.vertx.core.Future;
+import io.vertx.sqlclient.templates.SqlTemplate;
+import java.util.List;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.harvesteradmin.dataaccess.statics.LegacyServiceConfig;
+import org.folio.harvesteradmin.moduledata.BulkInsertable;
+import org.folio.harvesteradmin.moduledata.StoredEntity;
+import org.folio.tlib.postgres.TenantPgPool;
+
+/**
+ * Inserts many rows of an entity at a time.
+ * <br/><br/>
+ * By default, the rows are sent as one array per column to a single
+ * <code>INSERT ... SELECT FROM UNNEST(...)</code> statement, which Postgres executes as one
+ * set-based insert, without the per-row parameter mapping, binding and execution of a batched
+ * insert. The batched insert of the entity's insert template remains available, through the
+ * environment variable <code>bulk_insert_mode=batch</code>, or for entities that are not
+ * {@link BulkInsertable}.
+ */
+public class BulkInserter {
+
+  private static final Logger logger = LogManager.getLogger(BulkInserter.class);
+
+  enum Mode {
+    UNNEST,
+    BATCH;
+
+    /**
+     * Gets the mode named by the <code>bulk_insert_mode</code> setting, UNNEST unless it's
+     * <code>batch</code>.
+     */
+    static Mode fromConfig(String setting) {
+      return "batch".equalsIgnoreCase(setting) ? BATCH : UNNEST;
+    }
+  }
+
+  private BulkInserter() {
+  }
+
+  /**
+   * Inserts the entities.
+   *
+   * @param pool     tenant's connection pool
+   * @param entity   template entity defining the table and its columns
+   * @param entities the rows to insert
+   * @return succeeded future if all rows were inserted
+   */
+  public static Future<Void> insert(TenantPgPool pool, StoredEntity entity,
+                                    List<StoredEntity> entities) {
+    if (entities.isEmpty()) {
+      return Future.succeededFuture();
+    }
+    long start = System.currentTimeMillis();
+    Future<Void> insert;
+    if (Mode.fromConfig(LegacyServiceConfig.bulkInsertMode) == Mode.UNNEST
+        && entity instanceof BulkInsertable) {
+      BulkInsertable bulkEntity = (BulkInsertable) entity;
+      insert = pool.getPool()
+          .preparedQuery(bulkEntity.makeBulkInsertSql(pool.getSchema()))
+          .execute(bulkEntity.makeBulkInsertTuple(entities))
+          .mapEmpty();
+    } else {
+      insert = SqlTemplate.forUpdate(pool.getPool(), entity.makeInsertTemplate(pool.getSchema()))
+          .mapFrom(entity.getTupleMapper())
+          .executeBatch(entities)
+          .mapEmpty();
+    }
+    return insert.onSuccess(done -> logger.debug("Inserted " + entities.size() + " rows of "
+        + entity.getClass().getSimpleName() + " in " + (System.currentTimeMillis() - start)
+        + " ms"));
+  }
+}
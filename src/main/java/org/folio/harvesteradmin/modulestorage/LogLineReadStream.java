@@ -0,0 +1,68 @@
+package org.folio.harvesteradmin.modulestorage;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowStream;
+import io.vertx.sqlclient.templates.RowMapper;
+import org.folio.harvesteradmin.moduledata.LogLine;
+import org.folio.harvesteradmin.moduledata.StoredEntity;
+
+/**
+ * Reads the log statements of a job from a database cursor. The cursor fetches a fixed number of
+ * rows at a time, and stops fetching while the stream is paused, so that a consumer that can't
+ * keep up, like a slow HTTP client, holds back the reads rather than filling up memory.
+ */
+public class LogLineReadStream implements ReadStream<LogLine> {
+
+  private final RowStream<Row> rows;
+  private final RowMapper<StoredEntity> mapper = LogLine.entity().getRowMapper();
+
+  LogLineReadStream(RowStream<Row> rows) {
+    this.rows = rows;
+  }
+
+  @Override
+  public LogLineReadStream exceptionHandler(Handler<Throwable> handler) {
+    rows.exceptionHandler(handler);
+    return this;
+  }
+
+  @Override
+  public LogLineReadStream handler(Handler<LogLine> handler) {
+    rows.handler(handler == null ? null : row -> handler.handle((LogLine) mapper.map(row)));
+    return this;
+  }
+
+  @Override
+  public LogLineReadStream pause() {
+    rows.pause();
+    return this;
+  }
+
+  @Override
+  public LogLineReadStream resume() {
+    rows.resume();
+    return this;
+  }
+
+  @Override
+  public LogLineReadStream fetch(long amount) {
+    rows.fetch(amount);
+    return this;
+  }
+
+  @Override
+  public LogLineReadStream endHandler(Handler<Void> endHandler) {
+    rows.endHandler(endHandler);
+    return this;
+  }
+
+  /**
+   * Closes the cursor, for a consumer that stops reading before the end.
+   */
+  public Future<Void> close() {
+    return rows.close();
+  }
+}
@@ -0,0 +1,212 @@
+package org.folio.harvesteradmin.modulestorage;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.parsetools.RecordParser;
+import io.vertx.core.streams.WriteStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.harvesteradmin.metrics.Metrics;
+import org.folio.harvesteradmin.moduledata.LogLine;
+import org.folio.harvesteradmin.moduledata.StoredEntity;
+import org.folio.tlib.postgres.TenantPgPool;
+
+/**
+ * Stores a Harvester job log as it is streamed in. The incoming buffers are split into lines,
+ * the lines parsed into log statements, and the statements inserted in batches of a fixed size.
+ * The stream reports a full write queue while batches are waiting to be inserted, so that a
+ * piped source is paused until the database has caught up.
+ */
+public class LogLineWriteStream implements WriteStream<Buffer> {
+
+  private static final Logger logger = LogManager.getLogger(LogLineWriteStream.class);
+
+  private final TenantPgPool pool;
+  private final UUID harvestJobId;
+  private final int batchSize;
+  private final RecordParser lineParser;
+  private final Deque<List<StoredEntity>> queuedBatches = new ArrayDeque<>();
+  private final Promise<Integer> stored = Promise.promise();
+  private List<StoredEntity> currentBatch;
+  private int maxQueuedBatches = 2;
+  private boolean inserting;
+  private boolean ended;
+  private Throwable failure;
+  private Handler<Void> drainHandler;
+  private Handler<Throwable> exceptionHandler;
+  private int sequence;
+  private int nonMatches;
+  private int storedLines;
+  private final long started = System.currentTimeMillis();
+
+  LogLineWriteStream(TenantPgPool pool, UUID harvestJobId, int batchSize) {
+    this.pool = pool;
+    this.harvestJobId = harvestJobId;
+    this.batchSize = batchSize;
+    this.currentBatch = new ArrayList<>(batchSize);
+    this.lineParser = RecordParser.newDelimited("\n", this::handleLine);
+  }
+
+  /**
+   * Completes with the number of stored log statements when the stream has ended and all
+   * batches are inserted, or fails if an insert failed.
+   */
+  public Future<Integer> stored() {
+    return stored.future();
+  }
+
+  private void handleLine(Buffer buffer) {
+    String line = buffer.toString(StandardCharsets.UTF_8);
+    if (line.endsWith("\r")) {
+      line = line.substring(0, line.length() - 1);
+    }
+    if (line.length() > 100) {
+      LogLine logLine = new LogLine(harvestJobId, line, ++sequence);
+      if (logLine.getId() != null) {
+        currentBatch.add(logLine);
+        if (currentBatch.size() >= batchSize) {
+          queueCurrentBatch();
+        }
+      } else {
+        logger.error("Could not parse " + line);
+        nonMatches++;
+        Metrics.countUnparsedLogLine();
+      }
+    }
+  }
+
+  private void queueCurrentBatch() {
+    if (!currentBatch.isEmpty()) {
+      queuedBatches.add(currentBatch);
+      currentBatch = new ArrayList<>(batchSize);
+      insertNextBatch();
+    }
+  }
+
+  private void insertNextBatch() {
+    if (inserting || failure != null) {
+      return;
+    }
+    List<StoredEntity> batch = queuedBatches.poll();
+    if (batch == null) {
+      if (ended) {
+        finish();
+      }
+      return;
+    }
+    inserting = true;
+    BulkInserter.insert(pool, LogLine.entity(), batch)
+        .onComplete(result -> {
+          inserting = false;
+          if (result.succeeded()) {
+            storedLines += batch.size();
+            Metrics.countStoredLogLines(batch.size());
+            logger.info("Stored " + storedLines + " log lines for harvest job " + harvestJobId
+                + " (" + (System.currentTimeMillis() - started) + " ms)");
+            Handler<Void> handler = drainHandler;
+            if (handler != null && !writeQueueFull()) {
+              drainHandler = null;
+              handler.handle(null);
+            }
+            insertNextBatch();
+          } else {
+            fail(result.cause());
+          }
+        });
+  }
+
+  private void fail(Throwable cause) {
+    logger.error("Didn't save log lines: " + cause.getMessage());
+    failure = cause;
+    queuedBatches.clear();
+    if (exceptionHandler != null) {
+      exceptionHandler.handle(cause);
+    }
+    stored.tryFail(cause);
+  }
+
+  private void finish() {
+    logger.info("Parsed " + sequence + " log lines and stored " + storedLines
+        + " for harvest job " + harvestJobId + " in "
+        + (System.currentTimeMillis() - started) / 1000 + " seconds."
+        + (nonMatches > 0
+        ? " There were " + nonMatches + " log statements that could not be parsed!" : ""));
+    stored.tryComplete(storedLines);
+  }
+
+  @Override
+  public WriteStream<Buffer> exceptionHandler(Handler<Throwable> handler) {
+    this.exceptionHandler = handler;
+    return this;
+  }
+
+  @Override
+  public Future<Void> write(Buffer data) {
+    if (failure != null) {
+      return Future.failedFuture(failure);
+    }
+    if (ended) {
+      return Future.failedFuture("Log line stream for harvest job " + harvestJobId
+          + " is already ended");
+    }
+    lineParser.handle(data);
+    return Future.succeededFuture();
+  }
+
+  @Override
+  public void write(Buffer data, Handler<AsyncResult<Void>> handler) {
+    Future<Void> result = write(data);
+    if (handler != null) {
+      handler.handle(result);
+    }
+  }
+
+  @Override
+  public Future<Void> end() {
+    if (!ended && failure == null) {
+      // Terminates a last line that has no line break
+      lineParser.handle(Buffer.buffer("\n"));
+      ended = true;
+      queueCurrentBatch();
+      if (!inserting && queuedBatches.isEmpty()) {
+        finish();
+      }
+    }
+    return stored.future().mapEmpty();
+  }
+
+  @Override
+  public void end(Handler<AsyncResult<Void>> handler) {
+    Future<Void> result = end();
+    if (handler != null) {
+      result.onComplete(handler);
+    }
+  }
+
+  @Override
+  public WriteStream<Buffer> setWriteQueueMaxSize(int maxSize) {
+    // The queue is measured in batches of log lines
+    maxQueuedBatches = Math.max(1, maxSize);
+    return this;
+  }
+
+  @Override
+  public boolean writeQueueFull() {
+    return queuedBatches.size() >= maxQueuedBatches;
+  }
+
+  @Override
+  public WriteStream<Buffer> drainHandler(Handler<Void> handler) {
+    this.drainHandler = handler;
+    return this;
+  }
+}
@@ -0,0 +1,330 @@
+package org.folio.harvesteradmin.modulestorage;
+
+import io.vertx.core.Future;
+import io.vertx.sqlclient.SqlConnection;
+import io.vertx.sqlclient.Tuple;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.tlib.postgres.TenantPgPool;
+
+/**
+ * Versioned changes to the module's schema, applied on tenant init after the tables are created.
+ * <br/><br/>
+ * Applied versions are registered in the table schema_version. Each migration runs in its own
+ * transaction, holding an advisory lock on the tenant's schema, so that a migration is applied
+ * once and completely, also when several module instances initialize the tenant at the same time.
+ * New migrations are added to the end of the list with the next version number; applied
+ * migrations must not be changed.
+ */
+public class Migrations {
+
+  private static final Logger logger = LogManager.getLogger(Migrations.class);
+
+  private static final List<Migration> MIGRATIONS = Arrays.asList(
+      new Migration(1, "B-tree indexes for job, log and failure look-ups",
+          schema -> Arrays.asList(
+              "CREATE INDEX IF NOT EXISTS harvest_job_harvestable_id_idx"
+                  + " ON " + schema + ".harvest_job (harvestable_id)",
+              "CREATE INDEX IF NOT EXISTS harvest_job_finished_idx"
+                  + " ON " + schema + ".harvest_job (finished)",
+              "CREATE INDEX IF NOT EXISTS harvest_job_status_idx"
+                  + " ON " + schema + ".harvest_job (status)",
+              logStatementIndex(schema),
+              recordFailureIndex(schema))),
+      new Migration(2, "Full text and trigram indexes for text queries",
+          schema -> Arrays.asList(
+              // CQL full text queries on text fields use to_tsvector('english', column)
+              logStatementFullTextIndex(schema),
+              "CREATE INDEX IF NOT EXISTS harvest_job_harvestable_name_fts_idx"
+                  + " ON " + schema + ".harvest_job"
+                  + " USING GIN (to_tsvector('english', harvestable_name))",
+              "CREATE INDEX IF NOT EXISTS harvest_job_message_fts_idx"
+                  + " ON " + schema + ".harvest_job"
+                  + " USING GIN (to_tsvector('english', message))",
+              // Trigram indexes for LIKE queries, if the pg_trgm extension is available.
+              "DO $$ BEGIN"
+                  + "  CREATE EXTENSION IF NOT EXISTS pg_trgm WITH SCHEMA public;"
+                  + " EXCEPTION WHEN insufficient_privilege THEN"
+                  + "  RAISE NOTICE 'Not permitted to create extension pg_trgm';"
+                  + " END $$",
+              "DO $$ BEGIN"
+                  + " IF EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'pg_trgm') THEN"
+                  + "  CREATE INDEX IF NOT EXISTS harvest_job_harvestable_name_trgm_idx"
+                  + "   ON " + schema + ".harvest_job"
+                  + "   USING GIN (harvestable_name public.gin_trgm_ops);"
+                  + "  CREATE INDEX IF NOT EXISTS harvest_job_message_trgm_idx"
+                  + "   ON " + schema + ".harvest_job USING GIN (message public.gin_trgm_ops);"
+                  + "  CREATE INDEX IF NOT EXISTS harvest_job_transformation_trgm_idx"
+                  + "   ON " + schema + ".harvest_job"
+                  + "   USING GIN (transformation public.gin_trgm_ops);"
+                  + "  CREATE INDEX IF NOT EXISTS harvest_job_storage_trgm_idx"
+                  + "   ON " + schema + ".harvest_job USING GIN (storage public.gin_trgm_ops);"
+                  + " END IF;"
+                  + " END $$")),
+      new Migration(3, "Monthly partitions of log statements and record failures",
+          schema -> Arrays.asList(
+              createMonthlyPartitionsFunction(schema),
+              dropMonthlyPartitionsFunction(schema),
+              // re-created after the migrations
+              "DROP VIEW IF EXISTS " + schema + "." + Storage.Table.record_failure_view,
+              convertToPartitionedTable(schema, Storage.Table.log_statement,
+                  partitionedLogStatementTable(schema),
+                  "id, harvest_job_id, seq, time_stamp, log_level, job_label, statement",
+                  "id, harvest_job_id, seq, time_stamp, log_level, job_label, statement"),
+              convertToPartitionedTable(schema, Storage.Table.record_failure,
+                  partitionedRecordFailureTable(schema),
+                  "id, harvest_job_id, record_number, time_stamp, record_errors, "
+                      + "original_record, transformed_record",
+                  "id, harvest_job_id, record_number, "
+                      + "COALESCE(time_stamp, (SELECT started FROM " + schema + ".harvest_job"
+                      + " WHERE harvest_job.id = harvest_job_id), now()::TIMESTAMP), "
+                      + "record_errors, original_record, transformed_record"),
+              "CREATE TABLE IF NOT EXISTS " + schema + ".log_statement_default"
+                  + " PARTITION OF " + schema + ".log_statement DEFAULT",
+              "CREATE TABLE IF NOT EXISTS " + schema + ".record_failure_default"
+                  + " PARTITION OF " + schema + ".record_failure DEFAULT",
+              // indexes of converted tables are dropped with the unpartitioned tables
+              logStatementIndex(schema),
+              recordFailureIndex(schema),
+              logStatementFullTextIndex(schema))),
+      new Migration(4, "Indexes for paging by cursor",
+          schema -> Arrays.asList(
+              "CREATE INDEX IF NOT EXISTS harvest_job_started_id_idx"
+                  + " ON " + schema + ".harvest_job (started, id)",
+              "CREATE INDEX IF NOT EXISTS record_failure_time_stamp_id_idx"
+                  + " ON " + schema + ".record_failure (time_stamp, id)")),
+      new Migration(5, "Cascading deletes of job history",
+          schema -> Arrays.asList(
+              cascadingForeignKey(schema, Storage.Table.log_statement),
+              cascadingForeignKey(schema, Storage.Table.record_failure)))
+  );
+
+  private Migrations() {
+  }
+
+  private static String logStatementIndex(String schema) {
+    return "CREATE INDEX IF NOT EXISTS log_statement_harvest_job_id_seq_idx"
+        + " ON " + schema + ".log_statement (harvest_job_id, seq)";
+  }
+
+  private static String recordFailureIndex(String schema) {
+    return "CREATE INDEX IF NOT EXISTS record_failure_harvest_job_id_idx"
+        + " ON " + schema + ".record_failure (harvest_job_id)";
+  }
+
+  private static String logStatementFullTextIndex(String schema) {
+    return "CREATE INDEX IF NOT EXISTS log_statement_statement_fts_idx"
+        + " ON " + schema + ".log_statement"
+        + " USING GIN (to_tsvector('english', statement))";
+  }
+
+  /**
+   * The partitioned log statement table as of version 3, kept here as it was then, rather than
+   * taken from the entity, whose table definition changes in later versions.
+   */
+  private static String partitionedLogStatementTable(String schema) {
+    return "CREATE TABLE IF NOT EXISTS " + schema + ".log_statement ("
+        + "id UUID NOT NULL, "
+        + "harvest_job_id UUID NOT NULL REFERENCES " + schema + ".harvest_job(id), "
+        + "seq INTEGER NOT NULL, "
+        + "time_stamp TIMESTAMP NOT NULL, "
+        + "log_level TEXT NOT NULL, "
+        + "job_label TEXT NOT NULL, "
+        + "statement TEXT NOT NULL, "
+        + "PRIMARY KEY (id, time_stamp)"
+        + ") PARTITION BY RANGE (time_stamp)";
+  }
+
+  /**
+   * The partitioned record failure table as of version 3.
+   */
+  private static String partitionedRecordFailureTable(String schema) {
+    return "CREATE TABLE IF NOT EXISTS " + schema + ".record_failure ("
+        + "id UUID NOT NULL, "
+        + "harvest_job_id UUID NOT NULL REFERENCES " + schema + ".harvest_job(id), "
+        + "record_number TEXT, "
+        + "time_stamp TIMESTAMP NOT NULL, "
+        + "record_errors JSONB NOT NULL, "
+        + "original_record TEXT NOT NULL, "
+        + "transformed_record JSONB NOT NULL, "
+        + "PRIMARY KEY (id, time_stamp)"
+        + ") PARTITION BY RANGE (time_stamp)";
+  }
+
+  /**
+   * Replaces the foreign key from a table's harvest_job_id to the harvest job, whatever its name,
+   * with one that deletes the table's rows together with the job.
+   */
+  private static String cascadingForeignKey(String schema, Storage.Table table) {
+    return "DO $$ DECLARE"
+        + "  fk_name TEXT;"
+        + " BEGIN"
+        + "  FOR fk_name IN SELECT con.conname FROM pg_constraint con"
+        + "      JOIN pg_class c ON c.oid = con.conrelid"
+        + "      JOIN pg_namespace n ON n.oid = c.relnamespace"
+        + "     WHERE n.nspname = '" + schema + "' AND c.relname = '" + table + "'"
+        + "       AND con.contype = 'f' LOOP"
+        + "   EXECUTE format('ALTER TABLE %I.%I DROP CONSTRAINT %I',"
+        + "     '" + schema + "', '" + table + "', fk_name);"
+        + "  END LOOP;"
+        + "  ALTER TABLE " + schema + "." + table
+        + "   ADD CONSTRAINT " + table + "_harvest_job_id_fkey FOREIGN KEY (harvest_job_id)"
+        + "   REFERENCES " + schema + "." + Storage.Table.harvest_job + " (id) ON DELETE CASCADE;"
+        + " END $$";
+  }
+
+  /**
+   * Function creating the monthly partitions of a table for a range of months, named
+   * [table]_pYYYYMM. Months that already have rows in the default partition are skipped, as are
+   * partitions that were created concurrently.
+   */
+  private static String createMonthlyPartitionsFunction(String schema) {
+    return "CREATE OR REPLACE FUNCTION " + schema + ".create_monthly_partitions("
+        + "  parent TEXT, first_month TIMESTAMP, last_month TIMESTAMP) RETURNS VOID AS $$"
+        + " DECLARE"
+        + "  month_start TIMESTAMP;"
+        + "  part_name TEXT;"
+        + " BEGIN"
+        + "  FOR month_start IN SELECT generate_series(date_trunc('month', first_month),"
+        + "      date_trunc('month', last_month), INTERVAL '1 month') LOOP"
+        + "   part_name := parent || '_p' || to_char(month_start, 'YYYYMM');"
+        + "   IF to_regclass(format('%I.%I', '" + schema + "', part_name)) IS NULL THEN"
+        + "    BEGIN"
+        + "     EXECUTE format('CREATE TABLE %I.%I PARTITION OF %I.%I"
+        + " FOR VALUES FROM (%L) TO (%L)',"
+        + "       '" + schema + "', part_name, '" + schema + "', parent,"
+        + "       month_start, month_start + INTERVAL '1 month');"
+        + "    EXCEPTION"
+        + "     WHEN duplicate_table THEN"
+        + "      NULL;" // created concurrently
+        + "     WHEN check_violation THEN"
+        + "      RAISE NOTICE 'Rows for % remain in the default partition of %',"
+        + "        to_char(month_start, 'YYYY-MM'), parent;"
+        + "    END;"
+        + "   END IF;"
+        + "  END LOOP;"
+        + " END;"
+        + " $$ LANGUAGE plpgsql";
+  }
+
+  /**
+   * Function dropping the monthly partitions of a table that end before the cut-off time.
+   */
+  private static String dropMonthlyPartitionsFunction(String schema) {
+    return "CREATE OR REPLACE FUNCTION " + schema + ".drop_monthly_partitions("
+        + "  parent TEXT, cutoff TIMESTAMP) RETURNS INTEGER AS $$"
+        + " DECLARE"
+        + "  part_name TEXT;"
+        + "  dropped INTEGER := 0;"
+        + " BEGIN"
+        + "  FOR part_name IN SELECT c.relname FROM pg_inherits i"
+        + "      JOIN pg_class c ON c.oid = i.inhrelid"
+        + "      JOIN pg_class p ON p.oid = i.inhparent"
+        + "      JOIN pg_namespace n ON n.oid = p.relnamespace"
+        + "     WHERE n.nspname = '" + schema + "' AND p.relname = parent"
+        + "       AND c.relname ~ ('^' || parent || '_p[0-9]{6}$') LOOP"
+        + "   IF to_date(right(part_name, 6), 'YYYYMM') + INTERVAL '1 month' <= cutoff THEN"
+        + "    EXECUTE format('DROP TABLE %I.%I', '" + schema + "', part_name);"
+        + "    dropped := dropped + 1;"
+        + "   END IF;"
+        + "  END LOOP;"
+        + "  RETURN dropped;"
+        + " END;"
+        + " $$ LANGUAGE plpgsql";
+  }
+
+  /**
+   * Replaces a table that is not yet partitioned with a partitioned table, with monthly
+   * partitions for the existing rows, and moves the rows over.
+   */
+  private static String convertToPartitionedTable(String schema, Storage.Table table,
+                                                  String createTableSql, String columns,
+                                                  String selectList) {
+    String old = table + "_unpartitioned";
+    return "DO $$ BEGIN"
+        + " IF (SELECT c.relkind FROM pg_class c"
+        + "      JOIN pg_namespace n ON n.oid = c.relnamespace"
+        + "     WHERE n.nspname = '" + schema + "' AND c.relname = '" + table + "') = 'r' THEN"
+        + "  ALTER TABLE " + schema + "." + table + " RENAME TO " + old + ";"
+        + "  ALTER INDEX " + schema + "." + table + "_pkey RENAME TO " + old + "_pkey;"
+        + "  " + createTableSql + ";"
+        + "  CREATE TABLE " + schema + "." + table + "_default"
+        + "   PARTITION OF " + schema + "." + table + " DEFAULT;"
+        + "  PERFORM " + schema + ".create_monthly_partitions('" + table + "',"
+        + "   COALESCE((SELECT min(time_stamp) FROM " + schema + "." + old + "),"
+        + "    now()::TIMESTAMP), now()::TIMESTAMP);"
+        + "  INSERT INTO " + schema + "." + table + " (" + columns + ")"
+        + "   SELECT " + selectList + " FROM " + schema + "." + old + ";"
+        + "  DROP TABLE " + schema + "." + old + ";"
+        + " END IF;"
+        + " END $$";
+  }
+
+  /**
+   * Applies the migrations that are not yet registered as applied for the tenant.
+   */
+  public static Future<Void> migrate(TenantPgPool pool) {
+    String schema = pool.getSchema();
+    Future<Void> migrations = pool.query("CREATE TABLE IF NOT EXISTS " + schema + "."
+            + Storage.Table.schema_version + " ("
+            + "version INTEGER PRIMARY KEY, "
+            + "description TEXT NOT NULL, "
+            + "applied TIMESTAMP NOT NULL DEFAULT now())")
+        .execute()
+        .mapEmpty();
+    for (Migration migration : MIGRATIONS) {
+      migrations = migrations.compose(previous -> apply(pool, migration));
+    }
+    return migrations;
+  }
+
+  private static Future<Void> apply(TenantPgPool pool, Migration migration) {
+    String schema = pool.getSchema();
+    String versionTable = schema + "." + Storage.Table.schema_version;
+    return pool.getPool().withTransaction(connection ->
+        connection.preparedQuery("SELECT pg_advisory_xact_lock(hashtext($1))")
+            .execute(Tuple.of(versionTable))
+            .compose(locked -> connection
+                .preparedQuery("SELECT 1 FROM " + versionTable + " WHERE version = $1")
+                .execute(Tuple.of(migration.version)))
+            .compose(applied -> {
+              if (applied.rowCount() > 0) {
+                return Future.succeededFuture();
+              }
+              logger.info("Migrating schema " + schema + " to version " + migration.version
+                  + ": " + migration.description);
+              return execute(connection, migration.statements.apply(schema))
+                  .compose(executed -> connection
+                      .preparedQuery("INSERT INTO " + versionTable
+                          + " (version, description) VALUES ($1, $2)")
+                      .execute(Tuple.of(migration.version, migration.description)))
+                  .mapEmpty();
+            }))
+        .onFailure(e -> logger.error("Migration of schema " + schema + " to version "
+            + migration.version + " failed: " + e.getMessage()))
+        .mapEmpty();
+  }
+
+  private static Future<Void> execute(SqlConnection connection, List<String> statements) {
+    Future<Void> future = Future.succeededFuture();
+    for (String statement : statements) {
+      future = future.compose(previous -> connection.query(statement).execute().mapEmpty());
+    }
+    return future;
+  }
+
+  private static class Migration {
+    private final int version;
+    private final String description;
+    private final Function<String, List<String>> statements;
+
+    Migration(int version, String description, Function<String, List<String>> statements) {
+      this.version = version;
+      this.description = description;
+      this.statements = statements;
+    }
+  }
+}
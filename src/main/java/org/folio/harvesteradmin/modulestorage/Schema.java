@@ -19,7 +19,7 @@ public class Schema {
   private static final Logger logger = LogManager.getLogger(Storage.class);
 
   /**
-   * Creates tables and views.
+   * Creates tables, applies schema migrations, and creates views.
    */
   public static Future<Void> createDatabase(TenantPgPool pool) {
     final Promise<Void> promise = Promise.promise();
@@ -33,8 +33,10 @@ public class Schema {
     CompositeFuture.all(tables).onComplete(
         creates -> {
           if (creates.succeeded()) {
-            pool.query(createRecordFailureView(pool.getSchema()))
-                .execute().mapEmpty().onComplete(view -> {
+            Migrations.migrate(pool)
+                .compose(migrated -> pool.query(createRecordFailureView(pool.getSchema()))
+                    .execute().mapEmpty())
+                .onComplete(view -> {
                   if (view.succeeded()) {
                     promise.complete();
                   } else {
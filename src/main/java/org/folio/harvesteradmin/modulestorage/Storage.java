@@ -5,21 +5,28 @@ import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.sqlclient.Row;
 import io.vertx.sqlclient.RowIterator;
+import io.vertx.sqlclient.RowSet;
+import io.vertx.sqlclient.Tuple;
 import io.vertx.sqlclient.templates.RowMapper;
 import io.vertx.sqlclient.templates.SqlTemplate;
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.folio.harvesteradmin.dataaccess.statics.LegacyServiceConfig;
+import org.folio.harvesteradmin.metrics.Metrics;
 import org.folio.harvesteradmin.moduledata.HarvestJob;
 import org.folio.harvesteradmin.moduledata.HarvestJobField;
 import org.folio.harvesteradmin.moduledata.LogLine;
+import org.folio.harvesteradmin.moduledata.Page;
 import org.folio.harvesteradmin.moduledata.RecordFailure;
 import org.folio.harvesteradmin.moduledata.SqlQuery;
 import org.folio.harvesteradmin.moduledata.StoredEntity;
@@ -28,12 +35,17 @@ import org.folio.tlib.postgres.TenantPgPool;
 public class Storage {
   TenantPgPool pool;
   private static final Logger logger = LogManager.getLogger(Storage.class);
+  private static final int PARTITIONS_AHEAD = 2;
+  private static final long RETENTION_INTERVAL_MS = 24 * 60 * 60 * 1000L;
+  private static final Map<String, Long> retentionTimers = new ConcurrentHashMap<>();
+  private static final int EXACT_COUNT_BELOW_ESTIMATE = 1000;
 
   public enum Table {
     harvest_job,
     log_statement,
     record_failure,
-    record_failure_view
+    record_failure_view,
+    schema_version
   }
 
   /**
@@ -61,64 +73,98 @@ public class Storage {
     if (!tenantAttributes.containsKey("module_to")) {
       return Future.succeededFuture(); // doing nothing for disable
     } else {
-      return Schema.createDatabase(pool);
+      return Metrics.timeStorage("init", Schema.createDatabase(pool)
+          .compose(created -> createPartitions(null))
+          .compose(partitioned -> applyRetention()));
     }
   }
 
+  /**
+   * Creates monthly partitions of the log statement and record failure tables, from the month the
+   * given job started, or from the current month, until a couple of months ahead.
+   */
+  public Future<Void> createPartitions(UUID harvestJobId) {
+    Future<Void> future = Future.succeededFuture();
+    for (Table table : Arrays.asList(Table.log_statement, Table.record_failure)) {
+      future = future.compose(previous -> pool.getPool()
+          .preparedQuery("SELECT " + schema() + ".create_monthly_partitions($1, "
+              + "COALESCE((SELECT " + HarvestJobField.STARTED.columnName()
+              + " FROM " + schemaDotTable(Table.harvest_job)
+              + " WHERE " + HarvestJobField.ID.columnName() + " = $2), now()::TIMESTAMP), "
+              + "now()::TIMESTAMP + INTERVAL '" + PARTITIONS_AHEAD + " months')")
+          .execute(Tuple.of(table.name(), harvestJobId))
+          .mapEmpty());
+    }
+    return Metrics.timeStorage("createPartitions", future)
+        .onFailure(e -> logger.error("Could not create partitions: " + e.getMessage()));
+  }
+
+  /**
+   * Applies the retention period to a tenant's job history once a day from now on, unless that's
+   * already scheduled in this module instance or no retention period is configured. Retention is
+   * also applied on tenant init.
+   */
+  public static void scheduleRetention(Vertx vertx, String tenant) {
+    if (LegacyServiceConfig.historyRetentionMonths > 0) {
+      retentionTimers.computeIfAbsent(tenant, key -> vertx.setPeriodic(RETENTION_INTERVAL_MS,
+          id -> new Storage(vertx, tenant).applyRetention()));
+    }
+  }
+
+  /**
+   * Drops the partitions of log statements and record failures that are older than the
+   * configured retention period, and deletes the jobs that have no logs or failures left.
+   */
+  public Future<Void> applyRetention() {
+    int months = LegacyServiceConfig.historyRetentionMonths;
+    if (months <= 0) {
+      return Future.succeededFuture();
+    }
+    String cutoff = "date_trunc('month', now()::TIMESTAMP) - INTERVAL '" + months + " months'";
+    List<String> statements = Arrays.asList(
+        "SELECT " + schema() + ".drop_monthly_partitions('" + Table.log_statement + "', "
+            + cutoff + ")",
+        "SELECT " + schema() + ".drop_monthly_partitions('" + Table.record_failure + "', "
+            + cutoff + ")",
+        "DELETE FROM " + schemaDotTable(Table.log_statement) + "_default"
+            + " WHERE " + LogLine.LogLineField.TIME_STAMP.columnName() + " < " + cutoff,
+        "DELETE FROM " + schemaDotTable(Table.record_failure) + "_default"
+            + " WHERE " + RecordFailure.Column.time_stamp + " < " + cutoff,
+        "DELETE FROM " + schemaDotTable(Table.harvest_job) + " AS hj"
+            + " WHERE COALESCE(hj." + HarvestJobField.FINISHED.columnName()
+            + ", hj." + HarvestJobField.STARTED.columnName() + ") < " + cutoff
+            + " AND NOT EXISTS (SELECT 1 FROM " + schemaDotTable(Table.log_statement)
+            + " WHERE " + LogLine.LogLineField.HARVEST_JOB_ID.columnName() + " = hj.id)"
+            + " AND NOT EXISTS (SELECT 1 FROM " + schemaDotTable(Table.record_failure)
+            + " WHERE " + RecordFailure.Column.harvest_job_id + " = hj.id)");
+    Future<Void> future = Future.succeededFuture();
+    for (String statement : statements) {
+      future = future.compose(previous -> pool.query(statement).execute().mapEmpty());
+    }
+    return Metrics.timeStorage("applyRetention", future)
+        .onSuccess(done -> logger.info("Applied retention of " + months + " months to job history"))
+        .onFailure(e -> logger.error("Could not apply retention to job history: "
+            + e.getMessage()));
+  }
+
   /**
    * Stores a harvest job.
    */
   public Future<UUID> storeHarvestJob(HarvestJob harvestJob) {
-    return SqlTemplate.forUpdate(pool.getPool(),
+    return Metrics.timeStorage("storeHarvestJob", SqlTemplate.forUpdate(pool.getPool(),
             harvestJob.makeInsertTemplate(pool.getSchema()))
         .mapFrom(harvestJob.getTupleMapper())
-        .execute(harvestJob)
+        .execute(harvestJob))
         .onSuccess(res -> logger.info("Saved harvest job"))
         .onFailure(res -> logger.error("Couldn't save harvest job: " + res.getMessage()))
         .map(harvestJob.getId());
   }
 
   /**
-   * Stores log statements.
+   * Creates a write stream that stores log statements in batches as a log is written to it.
    */
-  public Future<Void> storeLogStatements(UUID harvestJobId, String log)  {
-    if (log != null) {
-      BufferedReader bufReader = new BufferedReader(new StringReader(log));
-      try {
-        List<StoredEntity> logLines = new ArrayList<>();
-        String line;
-        int sequence = 0;
-        int nonMatches = 0;
-        long startParse = System.currentTimeMillis();
-        while ((line = bufReader.readLine()) != null) {
-          if (line.length() > 100) {
-            LogLine logLine = new LogLine(harvestJobId, line, ++sequence);
-            if (logLine.getId() != null) {
-              logLines.add(new LogLine(harvestJobId, line, sequence));
-            } else {
-              logger.error("Could not parse " + line);
-              nonMatches++;
-            }
-          }
-        }
-        logger.info("Parsed " + sequence + " log lines in "
-            + (System.currentTimeMillis() - startParse) / 1000 + " seconds."
-            + (nonMatches > 0
-            ? "There were " + nonMatches + " log statements that could not be parsed!" : ""));
-        return SqlTemplate.forUpdate(pool.getPool(),
-            LogLine.entity().makeInsertTemplate(pool.getSchema()))
-            .mapFrom(LogLine.entity().getTupleMapper())
-            .executeBatch(logLines)
-            .onFailure(res -> logger.error("Didn't save log lines: " + res.getMessage()))
-            .mapEmpty();
-
-      } catch (IOException ioe) {
-        return Future.succeededFuture();
-      }
-    } else {
-      logger.info("No logs found for harvest job " + harvestJobId);
-      return Future.succeededFuture();
-    }
+  public LogLineWriteStream logStatementsWriter(UUID harvestJobId) {
+    return new LogLineWriteStream(pool, harvestJobId, LegacyServiceConfig.logInsertBatchSize);
   }
 
   /**
@@ -131,10 +177,8 @@ public class Storage {
         JsonObject failedRecord = (JsonObject) rec;
         list.add(RecordFailure.fromLegacyHarvesterJson(harvestJobId, failedRecord));
       }
-      return SqlTemplate.forUpdate(pool.getPool(),
-          RecordFailure.entity().makeInsertTemplate(pool.getSchema()))
-          .mapFrom(RecordFailure.entity().getTupleMapper())
-          .executeBatch(list)
+      return Metrics.timeStorage("storeFailedRecords",
+              BulkInserter.insert(pool, RecordFailure.entity(), list))
           .onFailure(res -> logger.error("Didn't save record failures: " + res.getMessage()))
           .mapEmpty();
 
@@ -147,28 +191,22 @@ public class Storage {
   /**
    * Gets previous jobs from module's storage.
    */
-  public Future<List<HarvestJob>> getPreviousJobs(String query) {
-    List<HarvestJob> previousJobs = new ArrayList<>();
-    return SqlTemplate.forQuery(pool.getPool(), query)
-        .mapTo(HarvestJob.entity().getRowMapper())
-        .execute(null)
-        .onSuccess(rows -> {
-          for (StoredEntity entity : rows) {
-            previousJobs.add((HarvestJob) entity);
-          }
-        }).map(previousJobs);
+  public Future<Page<HarvestJob>> getPreviousJobs(SqlQuery query) {
+    return Metrics.timeStorage("getPreviousJobs",
+        pool.getPool().preparedQuery(query.getQueryWithLimits()).execute())
+        .map(rows -> page(rows, query, HarvestJob.entity().getRowMapper(), HarvestJob.class));
   }
 
   /**
    * Retrieves past harvest job.
    */
   public Future<HarvestJob> getPreviousJobById(UUID id) {
-    return SqlTemplate.forQuery(pool.getPool(),
+    return Metrics.timeStorage("getPreviousJobById", SqlTemplate.forQuery(pool.getPool(),
             "SELECT * "
                 + "FROM " + schemaDotTable(Table.harvest_job) + " "
                 + "WHERE id = #{id}")
         .mapTo(HarvestJob.entity().getRowMapper())
-        .execute(Collections.singletonMap("id", id))
+        .execute(Collections.singletonMap("id", id)))
         .map(rows -> {
           RowIterator<StoredEntity> iterator = rows.iterator();
           return iterator.hasNext() ? (HarvestJob) iterator.next() : null;
@@ -176,68 +214,69 @@ public class Storage {
   }
 
   /**
-   * Retrieves log for past harvest job.
+   * Retrieves log lines for past harvest job.
    */
-  public Future<String> getLogsForPreviousJob(UUID id, SqlQuery queryFromCql) {
-    Promise<String> promise = Promise.promise();
-    final StringBuilder log = new StringBuilder();
+  public Future<List<LogLine>> getLogLinesForPreviousJob(UUID id, SqlQuery queryFromCql) {
+    List<LogLine> logLines = new ArrayList<>();
     String query = queryFromCql.withAdditionalWhereClause("harvest_job_id = #{id}").toString();
-    SqlTemplate.forQuery(pool.getPool(), query)
-        .mapTo(LogLine.entity().getRowMapper())
-        .execute(Collections.singletonMap("id", id))
+    return Metrics.timeStorage("getLogLinesForPreviousJob",
+        SqlTemplate.forQuery(pool.getPool(), query)
+            .mapTo(LogLine.entity().getRowMapper())
+            .execute(Collections.singletonMap("id", id)))
         .onSuccess(rows -> {
           for (StoredEntity entity : rows) {
-            log.append(entity).append(System.lineSeparator());
+            logLines.add((LogLine) entity);
           }
-          promise.complete(log.toString());
-        })
-        .onFailure(
-            rows -> promise.fail(rows.getMessage())
-        );
-    return promise.future();
+        }).map(logLines);
   }
 
   /**
-   * Retrieves log for past harvest job.
+   * Streams the log lines of a past harvest job from a database cursor, to a consumer that reads
+   * them at its own pace. The cursor is open, in a transaction, until the consumer's future
+   * completes.
+   *
+   * @param id           the ID of the harvest job
+   * @param queryFromCql query selecting and ordering the log lines
+   * @param consumer     reads the stream, and completes when done with it
+   * @return the outcome of the consumer
    */
-  public Future<JsonObject> getLogsAsJsonForPreviousJob(UUID id, SqlQuery queryFromCql) {
-    Promise<JsonObject> promise = Promise.promise();
-    final JsonArray array = new JsonArray();
-    String query = queryFromCql.withAdditionalWhereClause("harvest_job_id = #{id}").toString();
-    SqlTemplate.forQuery(pool.getPool(), query)
-        .mapTo(LogLine.entity().getRowMapper())
-        .execute(Collections.singletonMap("id", id))
-        .onSuccess(rows -> {
-          for (StoredEntity entity : rows) {
-            array.add(((LogLine) entity).asJson());
-          }
-          JsonObject json = new JsonObject();
-          json.put("logLines", array);
-          json.put("totalRecords", array.size());
-          promise.complete(json);
-        })
-        .onFailure(
-            rows -> promise.fail(rows.getMessage())
-        );
-    return promise.future();
+  public <T> Future<T> streamLogLinesForPreviousJob(
+      UUID id, SqlQuery queryFromCql, Function<LogLineReadStream, Future<T>> consumer) {
+    String query = queryFromCql
+        .withAdditionalWhereClause(LogLine.LogLineField.HARVEST_JOB_ID.columnName() + " = $1")
+        .toString();
+    return Metrics.timeStorage("streamLogLinesForPreviousJob",
+        pool.getPool().withTransaction(connection -> connection.prepare(query)
+            .compose(statement -> consumer.apply(new LogLineReadStream(
+                statement.createStream(LegacyServiceConfig.logStreamFetchSize, Tuple.of(id)))))));
   }
 
   /**
    * Retrieves failed records for past harvest jobs.
    */
-  public Future<List<RecordFailure>> getFailedRecordsForPreviousJobs(
-          SqlQuery query) {
-    List<RecordFailure> recordFailures = new ArrayList<>();
-    return SqlTemplate.forQuery(pool.getPool(), query.getQueryWithLimits())
-        .mapTo(RecordFailure.entity().getRowMapper())
-        .execute(null)
-        .onSuccess(rows -> {
-          for (StoredEntity entity : rows) {
-            recordFailures.add((RecordFailure) entity);
-          }
-        }).map(recordFailures);
+  public Future<Page<RecordFailure>> getFailedRecordsForPreviousJobs(SqlQuery query) {
+    return Metrics.timeStorage("getFailedRecordsForPreviousJobs",
+        pool.getPool().preparedQuery(query.getQueryWithLimits()).execute())
+        .map(rows -> page(rows, query, RecordFailure.entity().getRowMapper(),
+            RecordFailure.class));
   }
 
+  /**
+   * Maps the rows of a page of records, and picks up the total number of records matching the
+   * query if it was counted with the page.
+   */
+  private static <T> Page<T> page(RowSet<Row> rows, SqlQuery query,
+                                  RowMapper<StoredEntity> mapper, Class<T> type) {
+    List<T> records = new ArrayList<>();
+    Integer totalRecords = null;
+    for (Row row : rows) {
+      if (totalRecords == null && query.countsWithPage()) {
+        totalRecords = row.getLong(SqlQuery.TOTAL_RECORDS_COLUMN).intValue();
+      }
+      records.add(type.cast(mapper.map(row)));
+    }
+    return new Page<>(records, totalRecords);
+  }
 
   /**
    * Retrieves failed records for past harvest job.
@@ -262,58 +301,77 @@ public class Storage {
                 + rows.cause().getMessage());
           }
         });
-    return promise.future();
+    return Metrics.timeStorage("getFailedRecordForPreviousJob", promise.future());
   }
 
   /**
-   * Deletes the history of a previous job run.
+   * Deletes the history of a previous job run. The job's log statements and failed records are
+   * deleted with it, by the cascading foreign keys, in the same statement.
    */
   public Future<Void> deletePreviousJob(UUID id) {
-    Promise<Void> promise = Promise.promise();
-    getPreviousJobById(id).onComplete(previousJob -> {
-      if (previousJob.result() == null) {
-        promise.fail("No job history found with job ID " + id + ". Nothing deleted.");
-      } else {
-        logger.info("Found job " + previousJob.result().getId());
-        SqlTemplate.forUpdate(pool.getPool(),
-                "DELETE FROM " + schemaDotTable(Table.log_statement)
-                    + " WHERE " + LogLine.LogLineField.HARVEST_JOB_ID + " = #{id} ")
-            .execute(Collections.singletonMap("id", id))
-            .onComplete(deletedLogs -> {
-              if (deletedLogs.succeeded()) {
-                SqlTemplate.forUpdate(pool.getPool(),
-                        "DELETE FROM " + schemaDotTable(Table.record_failure)
-                            + " WHERE " + RecordFailure.Column.harvest_job_id + " = #{id} ")
-                    .execute(Collections.singletonMap("id", id))
-                    .onComplete(deletedFailedRecords -> {
-                      if (deletedFailedRecords.succeeded()) {
-                        SqlTemplate.forUpdate(pool.getPool(),
-                                "DELETE FROM " + schemaDotTable(Table.harvest_job)
-                                    + " WHERE " + HarvestJobField.ID + " = #{id} ")
-                            .execute(Collections.singletonMap("id", id))
-                            .onComplete(deletedJobRun -> {
-                              if (deletedJobRun.succeeded()) {
-                                promise.complete();
-                              } else {
-                                promise.fail("Could not delete the job run with ID " + id
-                                    + deletedJobRun.cause().getMessage());
-                              }
-                            });
-                      } else {
-                        promise.fail("Could not delete the job run with ID " + id
-                            + " because deletion of its failed records failed: "
-                            + deletedFailedRecords.cause().getMessage());
-                      }
-                    });
-              } else {
-                promise.fail("Could not delete the job run with ID " + id
-                    + " because deletion of its logs failed: "
-                    + deletedLogs.cause().getMessage());
-              }
-            });
+    return Metrics.timeStorage("deletePreviousJob", pool.getPool()
+            .preparedQuery("DELETE FROM " + schemaDotTable(Table.harvest_job)
+                + " WHERE " + HarvestJobField.ID.columnName() + " = $1")
+            .execute(Tuple.of(id)))
+        .recover(e -> Future.failedFuture("Could not delete the job run with ID " + id
+            + ": " + e.getMessage()))
+        .compose(deleted -> {
+          if (deleted.rowCount() == 0) {
+            return Future.failedFuture(
+                "No job history found with job ID " + id + ". Nothing deleted.");
+          }
+          logger.info("Deleted job " + id);
+          return Future.succeededFuture();
+        });
+  }
+
+  /**
+   * Deletes the history of the previous jobs matching a WHERE clause, with their log statements
+   * and failed records, in batches of the given size. Each batch is a statement of its own, so
+   * that purging a long history doesn't hold locks on the tables for the duration of the purge.
+   * The batch size bounds the number of jobs per statement, not rows: all the log statements and
+   * failed records of the jobs in a batch are deleted with them.
+   *
+   * @param where     WHERE clause selecting the jobs to delete, or empty for all jobs
+   * @param batchSize max number of jobs to delete per statement
+   * @return the number of jobs deleted
+   */
+  public Future<Integer> purgePreviousJobs(String where, int batchSize) {
+    String sql = "DELETE FROM " + schemaDotTable(Table.harvest_job)
+        + " WHERE " + HarvestJobField.ID.columnName() + " IN (SELECT "
+        + HarvestJobField.ID.columnName() + " FROM " + schemaDotTable(Table.harvest_job)
+        + " " + where + " LIMIT $1)";
+    return Metrics.timeStorage("purgePreviousJobs", purgeBatches(sql, batchSize, 0))
+        .onSuccess(deleted -> logger.info("Purged " + deleted + " job(s) from job history"))
+        .onFailure(e -> logger.error("Could not purge job history: " + e.getMessage()));
+  }
+
+  private Future<Integer> purgeBatches(String sql, int batchSize, int deletedSoFar) {
+    return pool.getPool().preparedQuery(sql).execute(Tuple.of(batchSize)).compose(deleted -> {
+      int total = deletedSoFar + deleted.rowCount();
+      if (deleted.rowCount() < batchSize) {
+        return Future.succeededFuture(total);
       }
+      return purgeBatches(sql, batchSize, total);
     });
-    return promise.future();
+  }
+
+  /**
+   * Gets the query planner's estimate of the number of records matching a query. If the estimate
+   * is small, the records are counted instead, since an estimate is then often far off, and an
+   * exact count cheap.
+   */
+  public Future<Integer> getEstimatedCount(SqlQuery query) {
+    return Metrics.timeStorage("getEstimatedCount",
+        pool.getPool().preparedQuery(query.getEstimatingSql()).execute())
+        .compose(rows -> {
+          JsonArray plan = new JsonArray(rows.iterator().next().getValue(0).toString());
+          long estimate = plan.getJsonObject(0).getJsonObject("Plan").getLong("Plan Rows");
+          if (estimate < EXACT_COUNT_BELOW_ESTIMATE) {
+            return getCount(query.getCountingSql());
+          }
+          return Future.succeededFuture((int) Math.min(estimate, Integer.MAX_VALUE));
+        });
   }
 
   /**
@@ -331,7 +389,7 @@ public class Storage {
             promise.fail("No result from counting by " + sql);
           }
         });
-    return promise.future();
+    return Metrics.timeStorage("getCount", promise.future());
   }
 
   private RowMapper<Integer> countingMapper() {
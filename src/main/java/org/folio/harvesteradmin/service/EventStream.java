@@ -0,0 +1,108 @@
+package org.folio.harvesteradmin.service;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.ext.web.RoutingContext;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A Server-Sent Events response, that stays open for events until the client goes away.
+ * <br/><br/>
+ * A comment is sent at intervals to keep the connection from timing out in proxies while there
+ * are no events. A client that doesn't keep up with the events is disconnected rather than have
+ * the events pile up in memory; an EventSource client will then reconnect.
+ */
+public class EventStream {
+
+  private static final Logger logger = LogManager.getLogger(EventStream.class);
+  private static final long KEEP_ALIVE_MILLIS = 15000;
+
+  private final Vertx vertx;
+  private final HttpServerResponse response;
+  private final long keepAliveTimer;
+  private Handler<Void> closeHandler;
+  private boolean closed;
+
+  /**
+   * Starts the event stream response to the request.
+   */
+  public EventStream(Vertx vertx, RoutingContext routingContext) {
+    this.vertx = vertx;
+    this.response = routingContext.response();
+    response.setStatusCode(200)
+        .setChunked(true)
+        .putHeader("Content-Type", "text/event-stream; charset=utf-8")
+        .putHeader("Cache-Control", "no-cache")
+        .putHeader("X-Accel-Buffering", "no")
+        .write(": connected\n\n");
+    keepAliveTimer = vertx.setPeriodic(KEEP_ALIVE_MILLIS, id -> write(": keep-alive\n\n"));
+    response.closeHandler(v -> close());
+  }
+
+  /**
+   * Sets a handler for when the stream is closed, by the client or because it fell behind.
+   */
+  public EventStream closeHandler(Handler<Void> handler) {
+    this.closeHandler = handler;
+    return this;
+  }
+
+  /**
+   * Tells if the stream was closed.
+   */
+  public synchronized boolean isClosed() {
+    return closed;
+  }
+
+  /**
+   * Sends an event.
+   *
+   * @param event the event type
+   * @param id    the event ID, or null for none
+   * @param data  the lines of data of the event
+   */
+  public void send(String event, String id, List<String> data) {
+    StringBuilder message = new StringBuilder("event: ").append(event).append('\n');
+    if (id != null) {
+      message.append("id: ").append(id).append('\n');
+    }
+    for (String line : data) {
+      message.append("data: ").append(line).append('\n');
+    }
+    write(message.append('\n').toString());
+  }
+
+  /**
+   * Sends an event with data that may span lines.
+   */
+  public void send(String event, String id, String data) {
+    send(event, id, data.lines().collect(Collectors.toList()));
+  }
+
+  private synchronized void write(String message) {
+    if (closed) {
+      return;
+    }
+    if (response.writeQueueFull()) {
+      logger.warn("Closing event stream to a client that doesn't keep up");
+      response.end();
+      close();
+      return;
+    }
+    response.write(message);
+  }
+
+  private synchronized void close() {
+    if (!closed) {
+      closed = true;
+      vertx.cancelTimer(keepAliveTimer);
+      if (closeHandler != null) {
+        closeHandler.handle(null);
+      }
+    }
+  }
+}
@@ -1,7 +1,6 @@
 package org.folio.harvesteradmin.service;
 
 import static org.folio.harvesteradmin.dataaccess.LegacyHarvesterStorage.getIntOrDefault;
-import static org.folio.harvesteradmin.dataaccess.LegacyHarvesterStorage.pagingPlainText;
 import static org.folio.harvesteradmin.dataaccess.statics.ApiPaths.HARVESTER_HARVESTABLES_PATH;
 import static org.folio.okapi.common.HttpResponse.responseError;
 import static org.folio.okapi.common.HttpResponse.responseJson;
@@ -10,28 +9,37 @@ import static org.folio.okapi.common.HttpResponse.responseText;
 import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
-import io.vertx.core.buffer.Buffer;
-import io.vertx.core.json.JsonArray;
+import io.vertx.core.http.HttpServerResponse;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.RoutingContext;
-import io.vertx.ext.web.client.impl.HttpResponseImpl;
 import io.vertx.ext.web.openapi.RouterBuilder;
 import io.vertx.ext.web.validation.RequestParameter;
 import io.vertx.ext.web.validation.RequestParameters;
 import io.vertx.ext.web.validation.ValidationHandler;
+import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.folio.harvesteradmin.dataaccess.ConfigBulkTransfer;
+import org.folio.harvesteradmin.dataaccess.HarvestableStatusPoller;
+import org.folio.harvesteradmin.dataaccess.IdGenerator;
 import org.folio.harvesteradmin.dataaccess.JobLauncher;
 import org.folio.harvesteradmin.dataaccess.LegacyHarvesterStorage;
+import org.folio.harvesteradmin.dataaccess.LiveLogTailer;
+import org.folio.harvesteradmin.dataaccess.LogTail;
 import org.folio.harvesteradmin.dataaccess.responsehandlers.ProcessedHarvesterResponseGet;
+import org.folio.harvesteradmin.dataaccess.statics.LegacyServiceConfig;
 import org.folio.harvesteradmin.moduledata.HarvestJob;
 import org.folio.harvesteradmin.moduledata.HarvestJobField;
+import org.folio.harvesteradmin.moduledata.Keyset;
 import org.folio.harvesteradmin.moduledata.LogLine;
+import org.folio.harvesteradmin.moduledata.Page;
 import org.folio.harvesteradmin.moduledata.RecordFailure;
 import org.folio.harvesteradmin.moduledata.SqlQuery;
+import org.folio.harvesteradmin.moduledata.TotalRecords;
+import org.folio.harvesteradmin.modulestorage.LogLineWriteStream;
 import org.folio.harvesteradmin.modulestorage.Storage;
 import org.folio.okapi.common.HttpResponse;
 import org.folio.tlib.RouterCreator;
@@ -42,6 +50,7 @@ import org.folio.tlib.util.TenantUtil;
 public class HarvestAdminService implements RouterCreator, TenantInitHooks {
 
   private static final Logger logger = LogManager.getLogger("harvester-admin");
+  private static final int MAX_GENERATED_IDS = 10000;
 
   @Override
   public Future<Router> createRouter(Vertx vertx) {
@@ -106,6 +115,18 @@ public class HarvestAdminService implements RouterCreator, TenantInitHooks {
                 .onFailure(cause -> exceptionResponse(cause, ctx)))
         .failureHandler(this::routerExceptionResponse);
 
+    routerBuilder
+        .operation("getJobLogStream")
+        .handler(ctx -> getJobLogStream(vertx, ctx)
+            .onFailure(cause -> exceptionResponse(cause, ctx)))
+        .failureHandler(this::routerExceptionResponse);
+
+    routerBuilder
+        .operation("getHarvestableStatusStream")
+        .handler(ctx -> getHarvestableStatusStream(vertx, ctx)
+            .onFailure(cause -> exceptionResponse(cause, ctx)))
+        .failureHandler(this::routerExceptionResponse);
+
     routerBuilder
         .operation("getFailedRecords")
         .handler(ctx -> getFailedRecords(vertx, ctx)
@@ -140,6 +161,11 @@ public class HarvestAdminService implements RouterCreator, TenantInitHooks {
         .handler(ctx -> getPreviousJobById(vertx, ctx)
             .onFailure(cause -> exceptionResponse(cause, ctx)))
         .failureHandler(this::routerExceptionResponse);
+    routerBuilder
+        .operation("purgePreviousJobs")
+        .handler(ctx -> purgePreviousJobs(vertx, ctx)
+            .onFailure(cause -> exceptionResponse(cause, ctx)))
+        .failureHandler(this::routerExceptionResponse);
     routerBuilder
         .operation("deletePreviousJob")
         .handler(ctx -> deletePreviousJob(vertx, ctx)
@@ -286,6 +312,17 @@ public class HarvestAdminService implements RouterCreator, TenantInitHooks {
         .handler(ctx -> stopJob(vertx, ctx))
         .failureHandler(this::routerExceptionResponse);
 
+    routerBuilder
+        .operation("exportConfigs")
+        .handler(ctx -> exportConfigs(vertx, ctx)
+            .onFailure(cause -> exceptionResponse(cause, ctx)))
+        .failureHandler(this::routerExceptionResponse);
+    routerBuilder
+        .operation("importConfigs")
+        .handler(ctx -> importConfigs(vertx, ctx)
+            .onFailure(cause -> exceptionResponse(cause, ctx)))
+        .failureHandler(this::routerExceptionResponse);
+
     routerBuilder
         .operation("getIds")
         .handler(this::generateIds);
@@ -320,7 +357,11 @@ public class HarvestAdminService implements RouterCreator, TenantInitHooks {
   @Override
   public Future<Void> postInit(Vertx vertx, String tenant, JsonObject tenantAttributes) {
     Storage storage = new Storage(vertx, tenant);
-    return storage.init(tenantAttributes);
+    return storage.init(tenantAttributes).onSuccess(initialized -> {
+      if (tenantAttributes.containsKey("module_to")) {
+        Storage.scheduleRetention(vertx, tenant);
+      }
+    });
   }
 
   private Future<Void> getConfigRecords(Vertx vertx, RoutingContext routingContext) {
@@ -328,8 +369,7 @@ public class HarvestAdminService implements RouterCreator, TenantInitHooks {
     LegacyHarvesterStorage legacyStorage = new LegacyHarvesterStorage(vertx, tenant);
     return legacyStorage.getConfigRecords(routingContext).map(getResponse -> {
       if (getResponse.wasOK()) {
-        responseJson(
-            routingContext, 200).end(getResponse.jsonObject().encodePrettily());
+        JsonResponseWriter.forRequest(routingContext).properties(getResponse.jsonObject()).end();
       } else {
         responseError(
             routingContext, getResponse.statusCode(), getResponse.errorMessage());
@@ -447,17 +487,78 @@ public class HarvestAdminService implements RouterCreator, TenantInitHooks {
 
   private Future<Void> getJobLog(Vertx vertx, RoutingContext routingContext) {
     String tenant = TenantUtil.tenant(routingContext);
+    String id = routingContext.request().getParam("id");
+    String after = routingContext.request().getParam("after");
     LegacyHarvesterStorage legacyStorage = new LegacyHarvesterStorage(vertx, tenant);
-    return legacyStorage.getJobLog(routingContext)
-        .onComplete(response -> {
-          if (response.succeeded()) {
-            int offset = getIntOrDefault(routingContext.request().getParam("offset"), 0);
-            int limit = getIntOrDefault(routingContext.request().getParam("limit"), 100000);
-            String log = pagingPlainText(response.result().bodyAsString(), offset, limit);
-            responseText(
-                routingContext,
-                response.result().statusCode())
-                .end(log == null ? "No logs found for this job." : log);
+    Future<LogTail> position;
+    if (after != null && !after.isEmpty()) {
+      try {
+        position = Future.succeededFuture(LogTail.fromCursor(after));
+      } catch (IllegalArgumentException iae) {
+        responseText(routingContext, 400).end(iae.getMessage());
+        return Future.succeededFuture();
+      }
+    } else {
+      position = legacyStorage.getJobLogStart(id, routingContext.request().getParam("from"))
+          .map(LogTail::startingFrom);
+    }
+    return position
+        .compose(start -> legacyStorage.tailJobLog(id, start))
+        .onSuccess(tail -> {
+          List<String> lines = tail.getLines();
+          int offset = Math.min(
+              Math.max(getIntOrDefault(routingContext.request().getParam("offset"), 0), 0),
+              lines.size());
+          int limit = Math.max(
+              getIntOrDefault(routingContext.request().getParam("limit"), 100000), 0);
+          int end = (int) Math.min((long) offset + limit, lines.size());
+          if (end == lines.size()) {
+            // the page reaches the end of the log, so far
+            routingContext.response().putHeader("X-Next-Cursor", tail.cursor());
+          }
+          StringBuilder log = new StringBuilder();
+          for (String line : lines.subList(offset, end)) {
+            log.append(line).append(System.lineSeparator());
+          }
+          responseText(routingContext, 200).end(
+              lines.isEmpty() && after == null ? "No logs found for this job." : log.toString());
+        })
+        .mapEmpty();
+  }
+
+  private Future<Void> getJobLogStream(Vertx vertx, RoutingContext routingContext) {
+    String tenant = TenantUtil.tenant(routingContext);
+    String id = routingContext.request().getParam("id");
+    LegacyHarvesterStorage legacyStorage = new LegacyHarvesterStorage(vertx, tenant);
+    return legacyStorage.getJobLogStart(id, routingContext.request().getParam("from"))
+        .onSuccess(start -> {
+          EventStream events = new EventStream(vertx, routingContext);
+          Runnable unsubscribe = LiveLogTailer.subscribe(vertx, tenant, id, start,
+              (lines, cursor) -> events.send("log", cursor, lines));
+          events.closeHandler(closed -> unsubscribe.run());
+          if (events.isClosed()) {
+            unsubscribe.run();
+          }
+        })
+        .mapEmpty();
+  }
+
+  private Future<Void> getHarvestableStatusStream(Vertx vertx, RoutingContext routingContext) {
+    String tenant = TenantUtil.tenant(routingContext);
+    String id = routingContext.request().getParam("id");
+    LegacyHarvesterStorage legacyStorage = new LegacyHarvesterStorage(vertx, tenant);
+    return legacyStorage.getConfigRecordById(HARVESTER_HARVESTABLES_PATH, id)
+        .onSuccess(harvestable -> {
+          if (!harvestable.wasOK()) {
+            responseError(routingContext, harvestable.statusCode(), harvestable.errorMessage());
+            return;
+          }
+          EventStream events = new EventStream(vertx, routingContext);
+          Runnable unsubscribe = HarvestableStatusPoller.subscribe(vertx, tenant, id,
+              harvestable.jsonObject(), (event, data) -> events.send(event, null, data.encode()));
+          events.closeHandler(closed -> unsubscribe.run());
+          if (events.isClosed()) {
+            unsubscribe.run();
           }
         })
         .mapEmpty();
@@ -468,8 +569,8 @@ public class HarvestAdminService implements RouterCreator, TenantInitHooks {
     LegacyHarvesterStorage legacyStorage = new LegacyHarvesterStorage(vertx, tenant);
     return legacyStorage.getFailedRecords(routingContext).onComplete(getResponse -> {
       if (getResponse.result().wasOK()) {
-        responseJson(
-            routingContext, 200).end(getResponse.result().jsonObject().encodePrettily());
+        JsonResponseWriter.forRequest(routingContext)
+            .properties(getResponse.result().jsonObject()).end();
       } else {
         responseError(
             routingContext, getResponse.result().statusCode(), getResponse.result().errorMessage());
@@ -509,12 +610,9 @@ public class HarvestAdminService implements RouterCreator, TenantInitHooks {
                 ? harvestable.result().jsonObject().getString("lastHarvestStarted")
                 : jobStatus.getString(HarvestJobField.STARTED.propertyName());
             logger.info("Looking for logs by start date: " + harvestStartedDate);
-            CompositeFuture.all(
-                    legacyStorage.getJobLog(harvestableId, harvestStartedDate),
-                    legacyStorage.getFailedRecords(harvestableId, 0, 10000))
-                .onComplete(logResults -> {
-                  HttpResponseImpl<Buffer> logsResponse = logResults.result().resultAt(0);
-                  ProcessedHarvesterResponseGet failuresResponse = logResults.result().resultAt(1);
+            legacyStorage.getFailedRecords(harvestableId, 0, 10000)
+                .onComplete(failures -> {
+                  ProcessedHarvesterResponseGet failuresResponse = failures.result();
                   Storage storage = new Storage(vertx, tenant);
                   HarvestJob job =
                       HarvestJob.fromHarvestableJson(harvestable.result().jsonObject());
@@ -530,22 +628,31 @@ public class HarvestAdminService implements RouterCreator, TenantInitHooks {
                     job.setStatus(jobStatus.getString(HarvestJobField.STATUS.propertyName()));
                   }
                   storage.storeHarvestJob(job)
-                          .onComplete(jobStored -> CompositeFuture.all(
-                              storage.storeLogStatements(job.getId(),logsResponse.bodyAsString()),
-                              storage.storeFailedRecords(job.getId(),
-                                  failuresResponse.jsonObject().getJsonArray("failedRecords"))
-                          ).onComplete(
-                              result -> {
-                                if (result.succeeded()) {
-                                  responseText(routingContext,200)
-                                      .end("Saved job with logs and record failures if any.");
-                                } else {
-                                  responseError(routingContext,500,
-                                      "There was an error saving the job or it's logs: "
-                                          + result.cause().getMessage());
-                                }
-                              }
-                          ));
+                      .compose(jobStored -> storage.createPartitions(job.getId()))
+                      .compose(partitionsCreated -> {
+                        // The log is streamed from the Harvester straight into storage
+                        LogLineWriteStream logWriter = storage.logStatementsWriter(job.getId());
+                        return CompositeFuture.all(
+                            legacyStorage.streamJobLog(harvestableId, harvestStartedDate,
+                                    logWriter)
+                                .compose(logResponse -> logWriter.stored()),
+                            storage.storeFailedRecords(job.getId(),
+                                failuresResponse.jsonObject().getJsonArray("failedRecords")));
+                      })
+                      .onComplete(
+                          result -> {
+                            if (result.succeeded()) {
+                              responseText(routingContext,200)
+                                  .end("Saved job with logs and record failures if any.");
+                              // in case this instance started after the tenant was initialized
+                              Storage.scheduleRetention(vertx, tenant);
+                            } else {
+                              responseError(routingContext,500,
+                                  "There was an error saving the job or it's logs: "
+                                      + result.cause().getMessage());
+                            }
+                          }
+                      );
                 });
           } else {
             responseError(routingContext,
@@ -559,45 +666,44 @@ public class HarvestAdminService implements RouterCreator, TenantInitHooks {
     String tenant = TenantUtil.tenant(routingContext);
     Storage storage = new Storage(vertx, tenant);
 
-    String fromDateTime = routingContext.request().getParam("from");
-    String untilDateTime = routingContext.request().getParam("until");
-    String timeRange = null;
-    if (fromDateTime != null && untilDateTime != null) {
-      timeRange = " (finished >= '" + fromDateTime + "'  AND finished <= '" + untilDateTime + "') ";
-    } else if (fromDateTime != null) {
-      timeRange = " finished >= '" + fromDateTime + "' ";
-    } else if (untilDateTime != null) {
-      timeRange = " finished <= '" + untilDateTime + "' ";
-    }
-
     SqlQuery query;
     try {
       query = HarvestJob.entity()
           .makeSqlFromCqlQuery(routingContext, storage.schemaDotTable(Storage.Table.harvest_job))
-          .withAdditionalWhereClause(timeRange);
+          .withTimeRange(HarvestJobField.FINISHED.columnName(),
+              routingContext.request().getParam("from"), routingContext.request().getParam("until"))
+          .withKeyset(Keyset.PREVIOUS_JOBS, routingContext.request().getParam("after"))
+          .withTotalRecords(TotalRecords.fromRequest(routingContext));
     } catch (PgCqlException pce) {
       responseText(routingContext, 400)
           .end("Could not execute query to retrieve jobs: " + pce.getMessage());
       return Future.succeededFuture();
+    } catch (IllegalArgumentException iae) {
+      responseText(routingContext, 400)
+          .end("Could not execute query to retrieve jobs: " + iae.getMessage());
+      return Future.succeededFuture();
     } catch (Exception e) {
       return Future.failedFuture(e.getMessage());
     }
-    return storage.getPreviousJobs(query.getQueryWithLimits()).onComplete(
+    return storage.getPreviousJobs(query).onComplete(
         jobsList -> {
           if (jobsList.succeeded()) {
-            JsonObject responseJson = new JsonObject();
-            JsonArray previousJobs = new JsonArray();
-            responseJson.put("previousJobs", previousJobs);
-            List<HarvestJob> jobs = jobsList.result();
-            for (HarvestJob job : jobs) {
-              previousJobs.add(job.asJson());
-            }
-            storage.getCount(query.getCountingSql()).onComplete(
-                count -> {
-                  responseJson.put("totalRecords", count.result());
-                  responseJson(routingContext, 200).end(responseJson.encodePrettily());
-                }
-            );
+            List<HarvestJob> jobs = jobsList.result().getRecords();
+            HarvestJob last = jobs.isEmpty() ? null : jobs.get(jobs.size() - 1);
+            getTotalRecords(storage, query, jobsList.result()).onComplete(count -> {
+              if (count.failed()) {
+                responseText(routingContext, 500)
+                    .end("Problem counting jobs: " + count.cause().getMessage());
+                return;
+              }
+              JsonResponseWriter.forRequest(routingContext)
+                  .array("previousJobs", jobs, HarvestJob::asJson)
+                  .properties(pagingProperties(count.result(),
+                      query.hasNextPage(jobs.size())
+                          ? Keyset.PREVIOUS_JOBS.cursor(last.getStarted(), last.getId())
+                          : null))
+                  .end();
+            });
           } else {
             responseText(routingContext, 500)
                 .end("Problem retrieving jobs: " + jobsList.cause().getMessage());
@@ -606,6 +712,39 @@ public class HarvestAdminService implements RouterCreator, TenantInitHooks {
     ).mapEmpty();
   }
 
+  private Future<Void> purgePreviousJobs(Vertx vertx, RoutingContext routingContext) {
+    String tenant = TenantUtil.tenant(routingContext);
+    Storage storage = new Storage(vertx, tenant);
+    SqlQuery query;
+    try {
+      query = HarvestJob.entity()
+          .makeSqlFromCqlQuery(routingContext, storage.schemaDotTable(Storage.Table.harvest_job))
+          .withTimeRange(HarvestJobField.FINISHED.columnName(),
+              routingContext.request().getParam("from"),
+              routingContext.request().getParam("until"));
+    } catch (PgCqlException pce) {
+      responseText(routingContext, 400)
+          .end("Could not execute query to purge jobs: " + pce.getMessage());
+      return Future.succeededFuture();
+    } catch (IllegalArgumentException iae) {
+      responseText(routingContext, 400)
+          .end("Could not execute query to purge jobs: " + iae.getMessage());
+      return Future.succeededFuture();
+    } catch (Exception e) {
+      return Future.failedFuture(e.getMessage());
+    }
+    return storage.purgePreviousJobs(query.getWhere(), LegacyServiceConfig.historyPurgeBatchSize)
+        .onComplete(purged -> {
+          if (purged.succeeded()) {
+            responseJson(routingContext, 200)
+                .end(new JsonObject().put("deleted", purged.result()).encodePrettily());
+          } else {
+            responseText(routingContext, 500)
+                .end("Problem purging jobs: " + purged.cause().getMessage());
+          }
+        }).mapEmpty();
+  }
+
   private Future<Void> getPreviousJobById(Vertx vertx, RoutingContext routingContext) {
     String tenant = TenantUtil.tenant(routingContext);
     RequestParameters params = routingContext.get(ValidationHandler.REQUEST_CONTEXT_KEY);
@@ -644,66 +783,76 @@ public class HarvestAdminService implements RouterCreator, TenantInitHooks {
     String contentType = routingContext.request().getHeader("Accept");
     logger.info("Request for previous logs in " + contentType + ".");
     UUID id = UUID.fromString(params.pathParameter("id").getString());
-    String fromDateTime = routingContext.request().getParam("from");
-    String untilDateTime = routingContext.request().getParam("until");
-    String timeRange = null;
-    if (fromDateTime != null && untilDateTime != null) {
-      timeRange = "time_stamp >= '" + fromDateTime + "' AND time_stamp <= '" + untilDateTime + "'";
-    } else if (fromDateTime != null) {
-      timeRange = "time_stamp >= '" + fromDateTime + "'";
-    } else if (untilDateTime != null) {
-      timeRange = "time_stamp <= '" + untilDateTime + "'";
-    }
 
     Storage storage = new Storage(vertx, tenant);
-    SqlQuery queryFromCql = LogLine.entity()
-        .makeSqlFromCqlQuery(routingContext, storage.schemaDotTable(Storage.Table.log_statement))
-        .withAdditionalWhereClause(timeRange);
-    if (contentType != null && contentType.contains("json")) {
-      return storage.getLogsAsJsonForPreviousJob(id, queryFromCql)
-          .onComplete(jobLog -> {
-            if (jobLog.succeeded()) {
-              if (jobLog.result().size() == 0) {
-                storage.getPreviousJobById(id).onComplete(harvestJob -> {
-                  if (harvestJob.result() == null) {
-                    responseText(routingContext, 404)
-                        .end("Found no previous job with ID " + id);
-                  } else {
-                    responseText(routingContext, 200)
-                        .end("Previous job with ID " + id + ", "
-                            + harvestJob.result().getName() + ", has no logs.");
-                  }
-                });
-              } else {
-                responseJson(routingContext, 200).end(jobLog.result().encodePrettily());
-              }
-            } else {
-              responseError(routingContext, 500, jobLog.cause().getMessage());
-            }
-          }).mapEmpty();
-    } else {
-      return storage.getLogsForPreviousJob(id, queryFromCql)
+    SqlQuery queryFromCql;
+    try {
+      queryFromCql = LogLine.entity()
+          .makeSqlFromCqlQuery(routingContext, storage.schemaDotTable(Storage.Table.log_statement))
+          .withTimeRange("time_stamp",
+              routingContext.request().getParam("from"), routingContext.request().getParam("until"))
+          .withKeyset(Keyset.LOG_LINES, routingContext.request().getParam("after"));
+    } catch (PgCqlException pce) {
+      responseText(routingContext, 400)
+          .end("Could not execute query to retrieve logs: " + pce.getMessage());
+      return Future.succeededFuture();
+    } catch (IllegalArgumentException iae) {
+      responseText(routingContext, 400)
+          .end("Could not execute query to retrieve logs: " + iae.getMessage());
+      return Future.succeededFuture();
+    }
+    boolean json = contentType != null && contentType.contains("json");
+    if (!json && queryFromCql.hasLimit()) {
+      // a page of plain text is read in full, to put the cursor to the next page in a header
+      return storage.getLogLinesForPreviousJob(id, queryFromCql)
           .onComplete(jobLog -> {
             if (jobLog.succeeded()) {
-              if (jobLog.result().length() == 0) {
-                storage.getPreviousJobById(id).onComplete(harvestJob -> {
-                  if (harvestJob.result() == null) {
-                    responseText(routingContext, 404)
-                        .end("Found no previous job with ID " + id);
-                  } else {
-                    responseText(routingContext, 200)
-                        .end("Previous job with ID " + id + ", "
-                            + harvestJob.result().getName() + ", has no logs.");
-                  }
-                });
+              List<LogLine> logLines = jobLog.result();
+              if (logLines.isEmpty()) {
+                respondNoLogLines(storage, id, routingContext);
               } else {
-                responseText(routingContext, 200).end(jobLog.result());
+                StringBuilder log = new StringBuilder();
+                for (LogLine logLine : logLines) {
+                  log.append(logLine).append(System.lineSeparator());
+                }
+                if (queryFromCql.hasNextPage(logLines.size())) {
+                  routingContext.response().putHeader("X-Next-Cursor", Keyset.LOG_LINES.cursor(
+                      logLines.get(logLines.size() - 1).getSequenceNumber()));
+                }
+                responseText(routingContext, 200).end(log.toString());
               }
             } else {
               responseError(routingContext, 500, jobLog.cause().getMessage());
             }
           }).mapEmpty();
     }
+    return storage.streamLogLinesForPreviousJob(id, queryFromCql,
+        logLines -> new LogLineStreamWriter(routingContext, queryFromCql, json).write(logLines))
+        .onComplete(streamed -> {
+          if (streamed.succeeded()) {
+            if (streamed.result() == 0) {
+              respondNoLogLines(storage, id, routingContext);
+            }
+          } else if (!routingContext.response().headWritten()) {
+            responseError(routingContext, 500, streamed.cause().getMessage());
+          } else {
+            logger.warn("Streaming of log of previous job " + id + " broke off: "
+                + streamed.cause().getMessage());
+          }
+        }).mapEmpty();
+  }
+
+  private static void respondNoLogLines(Storage storage, UUID id, RoutingContext routingContext) {
+    storage.getPreviousJobById(id).onComplete(harvestJob -> {
+      if (harvestJob.result() == null) {
+        responseText(routingContext, 404)
+            .end("Found no previous job with ID " + id);
+      } else {
+        responseText(routingContext, 200)
+            .end("Previous job with ID " + id + ", "
+                + harvestJob.result().getName() + ", has no logs.");
+      }
+    });
   }
 
   private Future<Void> getFailedRecordsForPreviousJobs(Vertx vertx, RoutingContext routingContext) {
@@ -715,47 +864,78 @@ public class HarvestAdminService implements RouterCreator, TenantInitHooks {
         .withDefaultLimit("100");
     RequestParameters params = routingContext.get(ValidationHandler.REQUEST_CONTEXT_KEY);
     RequestParameter jobId = params.pathParameter("id");
-    RequestParameter from = params.queryParameter("from");
-    RequestParameter until = params.queryParameter("until");
-
-    String timeRange = null;
-    if (from != null && until != null) {
-      timeRange = " (time_stamp >= '" + from.getString()
-          + "'  AND time_stamp <= '" + until.getString() + "') ";
-    } else if (from != null) {
-      timeRange = " time_stamp >= '" + from.getString() + "' ";
-    } else if (until != null) {
-      timeRange = " time_stamp <= '" + until.getString() + "' ";
-    }
 
     if (jobId != null) {
       queryFromCql.withAdditionalWhereClause("harvest_job_id = '" + jobId + "'");
     }
-    if (timeRange != null) {
-      queryFromCql.withAdditionalWhereClause(timeRange);
+    try {
+      queryFromCql.withTimeRange("time_stamp",
+              routingContext.request().getParam("from"), routingContext.request().getParam("until"))
+          .withKeyset(Keyset.FAILED_RECORDS, routingContext.request().getParam("after"))
+          .withTotalRecords(TotalRecords.fromRequest(routingContext));
+    } catch (IllegalArgumentException e) {
+      responseText(routingContext, 400)
+          .end("Could not execute query to retrieve failed records: " + e.getMessage());
+      return Future.succeededFuture();
     }
 
     return storage.getFailedRecordsForPreviousJobs(queryFromCql).onComplete(
       failuresList -> {
         if (failuresList.succeeded()) {
-          JsonObject responseJson = new JsonObject();
-          JsonArray recordFailures = new JsonArray();
-          responseJson.put("failedRecords", recordFailures);
-          List<RecordFailure> failures = failuresList.result();
-          for (RecordFailure failure : failures) {
-            recordFailures.add(failure.asJson());
-          }
-          storage.getCount(queryFromCql.getCountingSql()).onComplete(
-              count -> {
-                responseJson.put("totalRecords", count.result());
-                responseJson(routingContext, 200).end(responseJson.encodePrettily());
-              }
-          );
+          List<RecordFailure> failures = failuresList.result().getRecords();
+          RecordFailure last = failures.isEmpty() ? null : failures.get(failures.size() - 1);
+          getTotalRecords(storage, queryFromCql, failuresList.result()).onComplete(count -> {
+            if (count.failed()) {
+              responseText(routingContext, 500)
+                  .end("Problem counting failed records: " + count.cause().getMessage());
+              return;
+            }
+            JsonResponseWriter.forRequest(routingContext)
+                .array("failedRecords", failures, RecordFailure::asJson)
+                .properties(pagingProperties(count.result(),
+                    queryFromCql.hasNextPage(failures.size())
+                        ? Keyset.FAILED_RECORDS.cursor(last.getTimeStamp(), last.getId())
+                        : null))
+                .end();
+          });
+        } else {
+          responseText(routingContext, 500)
+              .end("Problem retrieving failed records: " + failuresList.cause().getMessage());
         }
       }
     ).mapEmpty();
   }
 
+  /**
+   * Gets the number of records matching the query, in the way the client asked for: as counted
+   * with the page if it was, else by a counting query, or as estimated, or not at all.
+   */
+  private static Future<Integer> getTotalRecords(Storage storage, SqlQuery query, Page<?> page) {
+    switch (query.getTotalRecords()) {
+      case none:
+        return Future.succeededFuture(null);
+      case estimated:
+        return storage.getEstimatedCount(query);
+      default:
+        if (page.getTotalRecords() != null) {
+          return Future.succeededFuture(page.getTotalRecords());
+        }
+        // counted separately with a cursor, or if the page is empty
+        return storage.getCount(query.getCountingSql());
+    }
+  }
+
+  private static JsonObject pagingProperties(Integer totalRecords, String nextCursor) {
+    JsonObject properties = new JsonObject();
+    if (totalRecords != null) {
+      properties.put("totalRecords", totalRecords);
+    }
+    if (nextCursor != null) {
+      properties.put("nextCursor", nextCursor);
+    }
+    return properties;
+  }
+
   private Future<Void> getFailedRecordForPreviousJob(Vertx vertx, RoutingContext routingContext) {
     String tenant = TenantUtil.tenant(routingContext);
     RequestParameters params = routingContext.get(ValidationHandler.REQUEST_CONTEXT_KEY);
@@ -778,18 +958,54 @@ public class HarvestAdminService implements RouterCreator, TenantInitHooks {
     ).mapEmpty();
   }
 
+  private Future<Void> exportConfigs(Vertx vertx, RoutingContext routingContext) {
+    String tenant = TenantUtil.tenant(routingContext);
+    HttpServerResponse response = routingContext.response()
+        .setChunked(true)
+        .putHeader("Content-Type", "application/x-ndjson");
+    return new ConfigBulkTransfer(vertx, tenant).exportTo(response)
+        .compose(exported -> response.end(), failure -> {
+          if (response.headWritten()) {
+            logger.error("Export of configurations failed: " + failure.getMessage());
+            response.reset();
+            return Future.succeededFuture();
+          }
+          return Future.failedFuture(failure);
+        });
+  }
+
+  private Future<Void> importConfigs(Vertx vertx, RoutingContext routingContext) {
+    String tenant = TenantUtil.tenant(routingContext);
+    String body = routingContext.body().asString();
+    if (body == null || body.isBlank()) {
+      responseError(routingContext, 400, "No configurations to import");
+      return Future.succeededFuture();
+    }
+    HttpServerResponse response = routingContext.response()
+        .setChunked(true)
+        .putHeader("Content-Type", "application/x-ndjson");
+    return new ConfigBulkTransfer(vertx, tenant)
+        .importFrom(Arrays.asList(body.split("\\r?\\n")), response)
+        .compose(imported -> response.end(), failure -> {
+          if (response.headWritten()) {
+            logger.error("Import of configurations failed: " + failure.getMessage());
+            response.reset();
+            return Future.succeededFuture();
+          }
+          return Future.failedFuture(failure);
+        });
+  }
+
   private void generateIds(RoutingContext routingContext) {
     RequestParameters params = routingContext.get(ValidationHandler.REQUEST_CONTEXT_KEY);
     int count = 1;
     if (params.queryParameter("count") != null) {
-      count = Math.min(params.queryParameter("count").getInteger(),100);
-    }
-    StringBuilder response = new StringBuilder();
-    for (int i = 0; i < count; i++) {
-      response
-          .append(LegacyHarvesterStorage.getRandomFifteenDigitString())
-          .append(System.lineSeparator());
+      count = Math.max(1,
+          Math.min(params.queryParameter("count").getInteger(), MAX_GENERATED_IDS));
     }
+    StringBuilder response = new StringBuilder(count * 16);
+    IdGenerator.nextIds(count)
+        .forEach(id -> response.append(id).append(System.lineSeparator()));
     responseText(routingContext, 200).end(response.toString());
   }
 }
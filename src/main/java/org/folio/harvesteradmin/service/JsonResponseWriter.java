@@ -0,0 +1,229 @@
+package org.folio.harvesteradmin.service;
+
+import static org.folio.okapi.common.HttpResponse.responseJson;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Writes a JSON object with one or more (potentially large) arrays to the response in chunks,
+ * encoding the array elements one by one as they are written, rather than encoding the entire
+ * object to one String first.
+ * <br/><br/>
+ * Output is pretty-printed like JsonObject.encodePrettily() by default, and compact if the
+ * request has the parameter <code>pretty=false</code> or accepts
+ * <code>application/json; pretty=false</code>.
+ */
+public class JsonResponseWriter {
+
+  private static final int CHUNK_SIZE = 16 * 1024;
+  private static final String INDENT = "  ";
+
+  private final HttpServerResponse response;
+  private final boolean pretty;
+  private final List<Property> properties = new ArrayList<>();
+  private Buffer chunk = Buffer.buffer(CHUNK_SIZE);
+  private boolean closed;
+
+  private JsonResponseWriter(HttpServerResponse response, boolean pretty) {
+    this.response = response;
+    this.pretty = pretty;
+  }
+
+  /**
+   * Creates a writer for the response of the request, with status 200 OK.
+   */
+  public static JsonResponseWriter forRequest(RoutingContext routingContext) {
+    return new JsonResponseWriter(responseJson(routingContext, 200), prettyPrint(routingContext));
+  }
+
+  /**
+   * Determines if the response should be pretty-printed, which it is unless the client asked
+   * for compact JSON.
+   */
+  public static boolean prettyPrint(RoutingContext routingContext) {
+    String prettyParameter = routingContext.request().getParam("pretty");
+    if (prettyParameter != null) {
+      return !prettyParameter.equalsIgnoreCase("false");
+    }
+    String accept = routingContext.request().getHeader("Accept");
+    return accept == null || !accept.replace(" ", "").contains("pretty=false");
+  }
+
+  /**
+   * Adds all properties of the JSON object, streaming the elements of its arrays.
+   */
+  public JsonResponseWriter properties(JsonObject json) {
+    for (Map.Entry<String, Object> entry : json) {
+      if (entry.getValue() instanceof JsonArray) {
+        array(entry.getKey(), (JsonArray) entry.getValue(), JsonResponseWriter::asIs);
+      } else {
+        property(entry.getKey(), entry.getValue());
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Adds a property with a value that is encoded as is.
+   */
+  public JsonResponseWriter property(String name, Object value) {
+    properties.add(new Property(name, value, null));
+    return this;
+  }
+
+  /**
+   * Adds an array property whose elements are converted to JSON as they are written.
+   */
+  public <T> JsonResponseWriter array(String name, Iterable<T> elements,
+                                      Function<T, Object> toJson) {
+    properties.add(new Property(name, null, new Elements<>(elements.iterator(), toJson)));
+    return this;
+  }
+
+  /**
+   * Writes the object to the response, pausing while the write queue is full, and ends the
+   * response. Writing stops if the client goes away while it's paused.
+   */
+  public void end() {
+    response.closeHandler(v -> abandon());
+    response.exceptionHandler(e -> abandon());
+    append("{");
+    writeProperties(0, false);
+  }
+
+  private void writeProperties(int index, boolean resumeArray) {
+    for (int i = index; i < properties.size(); i++) {
+      Property property = properties.get(i);
+      boolean first = true;
+      if (property.elements == null) {
+        appendName(property.name, i == 0);
+        append(encode(property.value, 1));
+      } else {
+        if (i == index && resumeArray) {
+          first = false;
+        } else {
+          appendName(property.name, i == 0);
+          append("[");
+        }
+        while (property.elements.hasNext()) {
+          Object element = property.elements.next();
+          append(first ? (pretty ? " " : "") : (pretty ? ", " : ","));
+          append(encode(element, 1));
+          first = false;
+          if (chunk.length() >= CHUNK_SIZE) {
+            flush();
+            if (response.writeQueueFull()) {
+              final int current = i;
+              response.drainHandler(v -> {
+                response.drainHandler(null);
+                if (!closed) {
+                  writeProperties(current, true);
+                }
+              });
+              return;
+            }
+          }
+        }
+        append(pretty ? " ]" : "]");
+      }
+    }
+    append(pretty && !properties.isEmpty() ? "\n}" : (pretty ? " }" : "}"));
+    response.end(chunk);
+  }
+
+  /**
+   * Drops the pending continuation and the rest of the elements when the connection is gone.
+   */
+  private void abandon() {
+    closed = true;
+    response.drainHandler(null);
+    properties.clear();
+    chunk = Buffer.buffer();
+  }
+
+  private void appendName(String name, boolean first) {
+    if (pretty) {
+      append(first ? "\n" + INDENT : ",\n" + INDENT);
+      append(Json.encode(name)).append(" : ");
+    } else {
+      append(first ? "" : ",");
+      append(Json.encode(name)).append(":");
+    }
+  }
+
+  private String encode(Object value, int level) {
+    if (value instanceof JsonObject) {
+      return pretty ? indent(((JsonObject) value).encodePrettily(), level)
+          : ((JsonObject) value).encode();
+    } else if (value instanceof JsonArray) {
+      return pretty ? indent(((JsonArray) value).encodePrettily(), level)
+          : ((JsonArray) value).encode();
+    } else {
+      return Json.encode(value);
+    }
+  }
+
+  /**
+   * Indents a pretty-printed nested value; line breaks inside JSON strings are always escaped.
+   */
+  private static String indent(String prettyJson, int level) {
+    return prettyJson.replace("\n", "\n" + INDENT.repeat(level));
+  }
+
+  private JsonResponseWriter append(String text) {
+    chunk.appendString(text);
+    return this;
+  }
+
+  private void flush() {
+    if (!response.headWritten()) {
+      response.setChunked(true);
+    }
+    response.write(chunk);
+    chunk = Buffer.buffer(CHUNK_SIZE);
+  }
+
+  private static Object asIs(Object element) {
+    return element;
+  }
+
+  private static class Property {
+    private final String name;
+    private final Object value;
+    private final Elements<?> elements;
+
+    Property(String name, Object value, Elements<?> elements) {
+      this.name = name;
+      this.value = value;
+      this.elements = elements;
+    }
+  }
+
+  private static class Elements<T> {
+    private final Iterator<T> iterator;
+    private final Function<T, Object> toJson;
+
+    Elements(Iterator<T> iterator, Function<T, Object> toJson) {
+      this.iterator = iterator;
+      this.toJson = toJson;
+    }
+
+    boolean hasNext() {
+      return iterator.hasNext();
+    }
+
+    Object next() {
+      return toJson.apply(iterator.next());
+    }
+  }
+}
@@ -0,0 +1,143 @@
+package org.folio.harvesteradmin.service;
+
+import static org.folio.okapi.common.HttpResponse.responseJson;
+import static org.folio.okapi.common.HttpResponse.responseText;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.Json;
+import io.vertx.ext.web.RoutingContext;
+import org.folio.harvesteradmin.moduledata.Keyset;
+import org.folio.harvesteradmin.moduledata.LogLine;
+import org.folio.harvesteradmin.moduledata.SqlQuery;
+import org.folio.harvesteradmin.modulestorage.LogLineReadStream;
+
+/**
+ * Writes the log lines of a previous job to the response as they are read from the database, in
+ * plain text or as JSON laid out like {@link JsonResponseWriter} does. The lines are written in
+ * chunks, and reading is paused while the response's write queue is full, so that memory use
+ * stays the same whatever the size of the log.
+ * <br/><br/>
+ * The response is not started until the first line is read, so that the caller can respond
+ * differently if there are no lines.
+ */
+public class LogLineStreamWriter {
+
+  private static final int CHUNK_SIZE = 16 * 1024;
+  private static final String INDENT = "  ";
+
+  private final RoutingContext routingContext;
+  private final HttpServerResponse response;
+  private final SqlQuery query;
+  private final boolean json;
+  private final boolean pretty;
+  private Buffer chunk = Buffer.buffer(CHUNK_SIZE);
+  private int lines;
+  private LogLine last;
+
+  /**
+   * Constructor.
+   *
+   * @param routingContext the request to respond to
+   * @param query          the query the lines are read with, for the cursor to the next page
+   * @param json           true to write JSON, false to write plain text
+   */
+  public LogLineStreamWriter(RoutingContext routingContext, SqlQuery query, boolean json) {
+    this.routingContext = routingContext;
+    this.response = routingContext.response();
+    this.query = query;
+    this.json = json;
+    this.pretty = JsonResponseWriter.prettyPrint(routingContext);
+  }
+
+  /**
+   * Writes the lines of the stream to the response and ends the response, unless there were no
+   * lines.
+   *
+   * @return the number of lines written, fails if reading failed or the client went away
+   */
+  public Future<Integer> write(LogLineReadStream logLines) {
+    Promise<Integer> promise = Promise.promise();
+    response.closeHandler(closed -> {
+      if (promise.tryFail("Client closed the connection while the log was streamed")) {
+        logLines.close();
+      }
+    });
+    logLines.exceptionHandler(e -> {
+      if (response.headWritten()) {
+        // too late for an error status, the client can only tell from the broken response
+        response.reset();
+      }
+      promise.tryFail(e);
+    });
+    logLines.endHandler(end -> {
+      if (lines > 0) {
+        appendEnd();
+        response.end(chunk);
+      }
+      promise.tryComplete(lines);
+    });
+    logLines.handler(logLine -> {
+      if (lines == 0) {
+        start();
+      }
+      append(logLine);
+      lines++;
+      last = logLine;
+      if (chunk.length() >= CHUNK_SIZE) {
+        response.write(chunk);
+        chunk = Buffer.buffer(CHUNK_SIZE);
+        if (response.writeQueueFull()) {
+          logLines.pause();
+          response.drainHandler(v -> {
+            response.drainHandler(null);
+            logLines.resume();
+          });
+        }
+      }
+    });
+    return promise.future();
+  }
+
+  private void start() {
+    if (json) {
+      responseJson(routingContext, 200).setChunked(true);
+      chunk.appendString(pretty ? "{\n" + INDENT + "\"logLines\" : [" : "{\"logLines\":[");
+    } else {
+      responseText(routingContext, 200).setChunked(true);
+    }
+  }
+
+  private void append(LogLine logLine) {
+    if (json) {
+      chunk.appendString(lines == 0 ? (pretty ? " " : "") : (pretty ? ", " : ","));
+      chunk.appendString(pretty
+          ? logLine.asJson().encodePrettily().replace("\n", "\n" + INDENT)
+          : logLine.asJson().encode());
+    } else {
+      chunk.appendString(logLine.toString()).appendString(System.lineSeparator());
+    }
+  }
+
+  private void appendEnd() {
+    if (json) {
+      String nextCursor = query.hasNextPage(lines)
+          ? Keyset.LOG_LINES.cursor(last.getSequenceNumber()) : null;
+      chunk.appendString(pretty ? " ]" : "]");
+      appendProperty("totalRecords", lines);
+      if (nextCursor != null) {
+        appendProperty("nextCursor", nextCursor);
+      }
+      chunk.appendString(pretty ? "\n}" : "}");
+    }
+  }
+
+  private void appendProperty(String name, Object value) {
+    chunk.appendString(pretty ? ",\n" + INDENT : ",")
+        .appendString(Json.encode(name))
+        .appendString(pretty ? " : " : ":")
+        .appendString(Json.encode(value));
+  }
+}
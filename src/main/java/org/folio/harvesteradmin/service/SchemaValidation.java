@@ -11,7 +11,7 @@ public class SchemaValidation {
    */
   public SchemaValidation(String endPoint, JsonObject input) {
     if (endPoint.contains("harvestables")) {
-      if (input.getString("type").equals("oaiPmh")) {
+      if ("oaiPmh".equals(input.getString("type"))) {
         if (!input.containsKey("oaiSetName")) {
           passed = false;
           errorMessage +=
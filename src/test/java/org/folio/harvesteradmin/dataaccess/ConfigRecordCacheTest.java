@@ -0,0 +1,48 @@
+package org.folio.harvesteradmin.dataaccess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+
+public class ConfigRecordCacheTest {
+
+  private static final String PATH = "/harvester/records/storages";
+
+  @Test
+  public void cachesCopiesOfRecords() {
+    String tenant = "cache_copies";
+    JsonObject record = new JsonObject().put("id", "1").put("name", "storage");
+    ConfigRecordCache.put(tenant, PATH, "1", record, ConfigRecordCache.generation(tenant));
+    record.put("name", "modified");
+    assertEquals("storage", ConfigRecordCache.get(tenant, PATH, "1").getString("name"));
+    ConfigRecordCache.get(tenant, PATH, "1").put("name", "modified");
+    assertEquals("storage", ConfigRecordCache.get(tenant, PATH, "1").getString("name"));
+  }
+
+  @Test
+  public void invalidateClearsTheTenantsRecords() {
+    String tenant = "cache_invalidate";
+    ConfigRecordCache.put(tenant, PATH, "1", new JsonObject().put("id", "1"),
+        ConfigRecordCache.generation(tenant));
+    ConfigRecordCache.put("cache_other", PATH, "1", new JsonObject().put("id", "1"),
+        ConfigRecordCache.generation("cache_other"));
+    ConfigRecordCache.invalidate(tenant);
+    assertNull(ConfigRecordCache.get(tenant, PATH, "1"));
+    assertEquals("1", ConfigRecordCache.get("cache_other", PATH, "1").getString("id"));
+  }
+
+  @Test
+  public void doesNotCacheRecordLookedUpBeforeInvalidation() {
+    String tenant = "cache_generation";
+    long lookUpStarted = ConfigRecordCache.generation(tenant);
+    // a write is sent or answered while the look-up is in flight
+    ConfigRecordCache.invalidate(tenant);
+    ConfigRecordCache.put(tenant, PATH, "1", new JsonObject().put("id", "1"), lookUpStarted);
+    assertNull(ConfigRecordCache.get(tenant, PATH, "1"));
+    ConfigRecordCache.put(tenant, PATH, "1", new JsonObject().put("id", "1"),
+        ConfigRecordCache.generation(tenant));
+    assertEquals("1", ConfigRecordCache.get(tenant, PATH, "1").getString("id"));
+  }
+}
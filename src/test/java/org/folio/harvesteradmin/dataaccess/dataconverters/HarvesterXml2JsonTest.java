@@ -0,0 +1,113 @@
+package org.folio.harvesteradmin.dataaccess.dataconverters;
+
+import static org.junit.Assert.assertEquals;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+
+public class HarvesterXml2JsonTest {
+
+  private static final String HARVESTABLES =
+      "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+          + "<harvestables count=\"2\" max=\"100\" start=\"0\"\n"
+          + "    xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">\n"
+          + "  <harvestable xsi:type=\"oaiPmhResource\" uri=\"http://localhost/1\">\n"
+          + "    <id>10001</id>\n"
+          + "    <name>Test &amp; harvest job (1)</name>\n"
+          + "    <enabled>false</enabled>\n"
+          + "    <message></message>\n"
+          + "    <json>{\"folioAuthPath\": \"bl-users/login\", \"n\": [1, 2]}</json>\n"
+          + "    <storage xsi:type=\"inventoryStorageEntity\">\n"
+          + "      <id>20001</id>\n"
+          + "      <json>not JSON</json>\n"
+          + "      <script>storage script</script>\n"
+          + "      <testData/>\n"
+          + "    </storage>\n"
+          + "    <transformation xsi:type=\"basicTransformation\">\n"
+          + "      <id>30001</id>\n"
+          + "      <stepAssociations>\n"
+          + "        <id>40001</id>\n"
+          + "        <position>1</position>\n"
+          + "        <step xsi:type=\"xmlTransformationStep\">\n"
+          + "          <id>50001</id>\n"
+          + "          <script><![CDATA[<xsl:stylesheet/>]]></script>\n"
+          + "          <testOutput></testOutput>\n"
+          + "        </step>\n"
+          + "      </stepAssociations>\n"
+          + "      <stepAssociations>\n"
+          + "        <id>40002</id>\n"
+          + "        <position>2</position>\n"
+          + "      </stepAssociations>\n"
+          + "    </transformation>\n"
+          + "  </harvestable>\n"
+          + "  <harvestable xsi:type=\"xmlBulkResource\">\n"
+          + "    <id>10002</id>\n"
+          + "    <!-- a comment -->\n"
+          + "    <name>Mixed <![CDATA[cdata]]> and text</name>\n"
+          + "    <json></json>\n"
+          + "    <url>http://example.com/a?b=1&amp;c=2</url>\n"
+          + "  </harvestable>\n"
+          + "</harvestables>\n";
+
+  private static final String TRANSFORMATIONS =
+      "<tranformations count=\"3\">"
+          + "<transformation><id>1</id><script>top level script</script></transformation>"
+          + "<transformation/>"
+          + "<transformation><description>  spaced  </description></transformation>"
+          + "</tranformations>";
+
+  private static final String FAILED_RECORDS =
+      "<failed-records count=\"1\">\n"
+          + "  <failed-record>\n"
+          + "    <recordNumber>ppn123</recordNumber>\n"
+          + "    <record><![CDATA[{\"original\": \"<marc/>\"}]]></record>\n"
+          + "    <recordErrors><error><label>x</label><message>y</message></error></recordErrors>\n"
+          + "  </failed-record>\n"
+          + "</failed-records>";
+
+  private static final String EMPTY = "<steps count=\"0\"></steps>";
+
+  @Test
+  public void convertsRecordSetsLikeDomConversion() throws Exception {
+    for (String xml : new String[] {HARVESTABLES, TRANSFORMATIONS, FAILED_RECORDS, EMPTY}) {
+      String expected = convertRecordSetWithDom(xml).encodePrettily();
+      assertEquals(expected, HarvesterXml2Json.convertRecordSetToJson(xml).encodePrettily());
+      assertEquals(expected,
+          HarvesterXml2Json.convertRecordSetToJson(Buffer.buffer(xml)).encodePrettily());
+    }
+  }
+
+  @Test
+  public void renamesArraysAndCountsRecords() {
+    JsonObject transformations = HarvesterXml2Json.convertRecordSetToJson(TRANSFORMATIONS);
+    assertEquals(3, transformations.getJsonArray("transformations").size());
+    assertEquals(Integer.valueOf(3), transformations.getInteger("totalRecords"));
+    JsonObject failedRecords = HarvesterXml2Json.convertRecordSetToJson(FAILED_RECORDS);
+    assertEquals(1, failedRecords.getJsonArray("failedRecords").size());
+  }
+
+  /**
+   * The DOM based conversion the StAX conversion replaced, used as the oracle.
+   */
+  private static JsonObject convertRecordSetWithDom(String xml) throws Exception {
+    JsonObject jsonObject = new JsonObject();
+    Document doc = HarvesterXml2Json.xmlStringToXmlDocument(xml);
+    HarvesterXml2Json.stripWhiteSpaceNodes(doc);
+    Node records = doc.getDocumentElement();
+    String arrayName = records.getNodeName();
+    arrayName = arrayName.replace("tranformation", "transformation");
+    arrayName = arrayName.replace("failed-records", "failedRecords");
+    JsonArray jsonArray = new JsonArray();
+    for (Node record : HarvesterXml2Json.iterable(records)) {
+      jsonArray.add(HarvesterXml2Json.recurseIntoNode(record));
+    }
+    jsonObject.put(arrayName, jsonArray);
+    jsonObject.put("totalRecords",
+        Integer.parseInt(records.getAttributes().getNamedItem("count").getTextContent()));
+    return jsonObject;
+  }
+}
@@ -0,0 +1,42 @@
+package org.folio.harvesteradmin.dataaccess.dataconverters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import io.vertx.core.json.JsonObject;
+import org.folio.harvesteradmin.dataaccess.statics.EntityRootNames;
+import org.junit.Test;
+
+public class JsonToHarvesterXmlTest {
+
+  private static final String CRLF_SCRIPT =
+      "<xsl:stylesheet>\r\n  <xsl:template match=\"/\"/>\r\n</xsl:stylesheet>\r\n";
+
+  @Test
+  public void writesCarriageReturnsAsCharacterReferences() throws Exception {
+    JsonObject step = new JsonObject()
+        .put("id", "50001")
+        .put("type", "xmlTransformationStep")
+        .put("name", "Step with\r\nCRLF")
+        .put("script", CRLF_SCRIPT);
+    String xml = JsonToHarvesterXml.convertToHarvesterRecord(
+        step, EntityRootNames.STEP_ROOT_PROPERTY, "diku").toString();
+    assertTrue(xml, xml.contains("Step with&#13;\nCRLF"));
+    assertTrue(xml, xml.contains("&lt;xsl:stylesheet&gt;&#13;\n"));
+    assertEquals(-1, xml.indexOf('\r'));
+  }
+
+  @Test
+  public void roundTripsValuesWithCrlf() throws Exception {
+    JsonObject step = new JsonObject()
+        .put("id", "50001")
+        .put("type", "xmlTransformationStep")
+        .put("name", "Step with\r\nCRLF")
+        .put("script", CRLF_SCRIPT);
+    JsonObject parsed = HarvesterXml2Json.convertRecordToJson(JsonToHarvesterXml
+        .convertToHarvesterRecord(step.copy(), EntityRootNames.STEP_ROOT_PROPERTY, "diku")
+        .toString());
+    assertEquals("Step with\r\nCRLF", parsed.getString("name"));
+    assertEquals(CRLF_SCRIPT, parsed.getString("script"));
+  }
+}
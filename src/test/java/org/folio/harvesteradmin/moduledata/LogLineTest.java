@@ -0,0 +1,128 @@
+package org.folio.harvesteradmin.moduledata;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import io.vertx.core.json.JsonObject;
+import java.util.Random;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.Test;
+
+public class LogLineTest {
+
+  /**
+   * The regular expression log lines were parsed with before, used as the oracle for the parser.
+   */
+  private static final Pattern logPattern // (timestamp) (level) (job) (statement)
+      = Pattern.compile("([0-9\\- :,]{23}) ([A-Z]{4,5}) {1,2}(\\[.*?\\(.*?\\)]) (.*)");
+
+  private static final UUID JOB_ID = UUID.randomUUID();
+
+  private static final String[] SAMPLE_LINES = {
+      "2023-01-19 12:36:04,371 INFO  [20230119 123604 - Test harvest job (2305)] Starting job",
+      "2023-01-19 12:36:05,002 DEBUG [20230119 123604 - Test harvest job (2305)] Got 100 records",
+      "2023-01-19 12:36:06,118 WARN  [20230119 123604 - Job (with) parentheses (2305)] A (note)",
+      "2023-01-19 12:36:07,250 ERROR [20230119 123604 - Test harvest job (2305)] Failed: [x (y)] z",
+      "2023-01-19 12:36:08,999 INFO [label (1)] single space after the level",
+      "2023-01-19 12:36:09,000 INFO  [label (1)] ",
+      "2023-01-19 12:36:10,001 INFO  [label (1)]] statement after a second bracket",
+      "2023-01-19 12:36:11,002 INFO  [(1)] empty job name",
+  };
+
+  private static final char[] MUTATIONS = {
+      '0', '9', '-', ' ', ':', ',', 'A', 'Z', 'a', '[', ']', '(', ')', 'x', '\t',
+      '\n', '\r', '\u0085', ' ', ' '
+  };
+
+  @Test
+  public void parsesHarvesterLogLine() {
+    JsonObject json = new LogLine(JOB_ID, SAMPLE_LINES[0], 1).asJson();
+    assertThat(json.getString("timeStamp"), is("2023-01-19 12:36:04,371"));
+    assertThat(json.getString("logLevel"), is("INFO"));
+    assertThat(json.getString("jobLabel"), is("[20230119 123604 - Test harvest job (2305)]"));
+    assertThat(json.getString("line"), is("Starting job"));
+  }
+
+  @Test
+  public void rejectsLinesThatAreNotLogStatements() {
+    assertNull(new LogLine(JOB_ID, "", 1).getId());
+    assertNull(new LogLine(JOB_ID, "at org.folio.Some.method(Some.java:12)", 1).getId());
+    assertNull(new LogLine(JOB_ID,
+        "2023-01-19 12:36:04,371 INFORMATION [label (1)] level too long", 1).getId());
+    assertNull(new LogLine(JOB_ID,
+        "2023-01-19 12:36:04,371 INFO   [label (1)] three spaces after the level", 1).getId());
+    assertNull(new LogLine(JOB_ID,
+        "2023-01-19 12:36:04,371 INFO  [label 1] no parenthesis in the label", 1).getId());
+    assertNull(new LogLine(JOB_ID,
+        "2023-01-19 12:36:04,371 INFO  [label (1)] two\nlines", 1).getId());
+  }
+
+  @Test
+  public void parsesSameLinesAsRegularExpression() {
+    for (String line : SAMPLE_LINES) {
+      assertSameAsRegularExpression(line);
+    }
+    Random random = new Random(4711);
+    for (int i = 0; i < 200000; i++) {
+      StringBuilder line = new StringBuilder(SAMPLE_LINES[random.nextInt(SAMPLE_LINES.length)]);
+      int mutations = 1 + random.nextInt(3);
+      for (int m = 0; m < mutations; m++) {
+        mutate(line, random);
+      }
+      assertSameAsRegularExpression(line.toString());
+    }
+  }
+
+  @Test
+  public void generatesTimeOrderedVersion7Uuids() {
+    long now = System.currentTimeMillis();
+    UUID earlier = TimeOrderedUuid.generate(now);
+    UUID later = TimeOrderedUuid.generate(now + 1);
+    assertEquals(7, earlier.version());
+    assertEquals(2, earlier.variant());
+    assertEquals(now, earlier.getMostSignificantBits() >>> 16);
+    assertTrue("UUIDs sort by time",
+        Long.compareUnsigned(earlier.getMostSignificantBits(), later.getMostSignificantBits()) < 0);
+  }
+
+  private static void mutate(StringBuilder line, Random random) {
+    int position = random.nextInt(line.length() + 1);
+    char c = MUTATIONS[random.nextInt(MUTATIONS.length)];
+    switch (random.nextInt(3)) {
+      case 0:
+        line.insert(position, c);
+        break;
+      case 1:
+        if (position < line.length()) {
+          line.deleteCharAt(position);
+        }
+        break;
+      default:
+        if (position < line.length()) {
+          line.setCharAt(position, c);
+        }
+        break;
+    }
+  }
+
+  private static void assertSameAsRegularExpression(String line) {
+    Matcher matcher = logPattern.matcher(line);
+    LogLine logLine = new LogLine(JOB_ID, line, 1);
+    if (matcher.matches()) {
+      assertNotNull("Parses [" + line + "]", logLine.getId());
+      JsonObject json = logLine.asJson();
+      assertEquals(line, matcher.group(1).trim(), json.getString("timeStamp"));
+      assertEquals(line, matcher.group(2).trim(), json.getString("logLevel"));
+      assertEquals(line, matcher.group(3), json.getString("jobLabel"));
+      assertEquals(line, matcher.group(4), json.getString("line"));
+    } else {
+      assertNull("Rejects [" + line + "]", logLine.getId());
+    }
+  }
+}
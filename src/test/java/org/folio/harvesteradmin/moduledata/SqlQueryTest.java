@@ -0,0 +1,44 @@
+package org.folio.harvesteradmin.moduledata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import org.junit.Test;
+
+public class SqlQueryTest {
+
+  private static SqlQuery query() {
+    return new SqlQuery("SELECT * ", "FROM jobs", null, null, null, null);
+  }
+
+  @Test
+  public void acceptsIsoDatesAndDateTimes() {
+    assertEquals("'2023-01-10'", SqlQuery.timestampLiteral("from", "2023-01-10"));
+    assertEquals("'2023-01-10T10:00'", SqlQuery.timestampLiteral("from", "2023-01-10T10:00"));
+    assertEquals("'2023-01-10T10:00:01.500'",
+        SqlQuery.timestampLiteral("from", "2023-01-10 10:00:01.5"));
+    assertEquals("'2023-01-10T10:00Z'", SqlQuery.timestampLiteral("from", "2023-01-10T10:00Z"));
+    assertEquals("'2023-01-10T10:00-05:00'",
+        SqlQuery.timestampLiteral("from", "2023-01-10T10:00:00-05:00"));
+  }
+
+  @Test
+  public void rejectsAnythingElse() {
+    for (String value : new String[] {"yesterday", "2023-13-01", "2023-01-10' OR '1'='1",
+        "2023-01-10T10:00:00'; DROP TABLE jobs; --"}) {
+      assertThrows(IllegalArgumentException.class,
+          () -> query().withTimeRange("finished", value, null));
+      assertThrows(IllegalArgumentException.class,
+          () -> query().withTimeRange("finished", null, value));
+    }
+  }
+
+  @Test
+  public void addsTimeRangeToWhereClause() {
+    assertEquals("", query().withTimeRange("finished", null, "").getWhere());
+    assertEquals(" where (finished >= '2023-01-10')",
+        query().withTimeRange("finished", "2023-01-10", null).getWhere());
+    assertEquals(" where (finished >= '2023-01-10' AND finished <= '2023-02-10')",
+        query().withTimeRange("finished", "2023-01-10", "2023-02-10").getWhere());
+  }
+}
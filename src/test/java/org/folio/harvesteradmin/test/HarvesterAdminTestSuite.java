@@ -26,6 +26,7 @@ import static org.folio.harvesteradmin.test.sampleData.Samples.SAMPLE_STEP_2_ID;
 import static org.folio.harvesteradmin.test.sampleData.Samples.SAMPLE_STEP_ID;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertTrue;
 
 import io.restassured.RestAssured;
@@ -33,13 +34,26 @@ import io.restassured.http.Header;
 import io.restassured.response.ExtractableResponse;
 import io.restassured.response.Response;
 import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpMethod;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import org.folio.harvesteradmin.MainVerticle;
+import org.folio.harvesteradmin.moduledata.HarvestJob;
+import org.folio.harvesteradmin.modulestorage.LogLineWriteStream;
+import org.folio.harvesteradmin.modulestorage.Storage;
 import org.folio.okapi.common.XOkapiHeaders;
 import org.folio.tlib.postgres.testing.TenantPgPoolContainer;
 import org.junit.After;
@@ -337,6 +351,95 @@ public class HarvesterAdminTestSuite {
     getJobLog("9865320", 404);
   }
 
+  @Test
+  public void cannotFollowLogsOfHarvestableThatWasNotRun() {
+    SampleId harvestableId = new SampleId(1);
+    postConfigRecord(BASE_STORAGE_JSON, THIS_STORAGES_PATH, 201);
+    postConfigRecord(BASE_TRANSFORMATION_JSON, THIS_TRANSFORMATIONS_PATH, 201);
+    postConfigRecord(sampleHarvestable(harvestableId), THIS_HARVESTABLES_PATH, 201);
+
+    RestAssured.given().header(OKAPI_TENANT)
+        .get(THIS_HARVESTABLES_PATH + "/" + harvestableId + "/log-stream")
+        .then().statusCode(404);
+    RestAssured.given().header(OKAPI_TENANT)
+        .get(THIS_HARVESTABLES_PATH + "/9865320/log-stream")
+        .then().statusCode(404);
+    RestAssured.given().header(OKAPI_TENANT)
+        .get(THIS_HARVESTABLES_PATH + "/" + harvestableId + "/log?after=not-a-cursor")
+        .then().statusCode(400);
+  }
+
+  @Test
+  public void canWatchStatusOfHarvestable() throws Exception {
+    SampleId harvestableId = new SampleId(1);
+    postConfigRecord(BASE_STORAGE_JSON, THIS_STORAGES_PATH, 201);
+    postConfigRecord(BASE_TRANSFORMATION_JSON, THIS_TRANSFORMATIONS_PATH, 201);
+    postConfigRecord(sampleHarvestable(harvestableId), THIS_HARVESTABLES_PATH, 201);
+
+    String event = readEvent(THIS_HARVESTABLES_PATH + "/" + harvestableId + "/status-stream");
+    assertTrue("Starts with status event: " + event, event.startsWith("event: status\n"));
+    JsonObject status = new JsonObject(event.substring(event.indexOf("data: "))
+        .lines().map(line -> line.substring("data: ".length())).collect(Collectors.joining()));
+    assertThat(status.getString("id"), is(harvestableId.toString()));
+    assertThat(status.getString("name"), is("Test harvest job"));
+
+    RestAssured.given().header(OKAPI_TENANT)
+        .get(THIS_HARVESTABLES_PATH + "/9865320/status-stream")
+        .then().statusCode(404);
+  }
+
+  /**
+   * Opens a Server-Sent Events stream, reads its first event, and closes it.
+   */
+  private String readEvent(String path) throws Exception {
+    CompletableFuture<String> received = new CompletableFuture<>();
+    HttpClient client = vertx.createHttpClient();
+    client.request(HttpMethod.GET, PORT_HARVESTER_ADMIN, "localhost", path)
+        .compose(request -> request.putHeader(XOkapiHeaders.TENANT, TENANT).send())
+        .onSuccess(response -> {
+          if (response.statusCode() != 200
+              || !response.getHeader("Content-Type").startsWith("text/event-stream")) {
+            received.completeExceptionally(new AssertionError("Got " + response.statusCode()
+                + " " + response.getHeader("Content-Type")));
+            return;
+          }
+          StringBuilder stream = new StringBuilder();
+          response.handler(chunk -> {
+            stream.append(chunk.toString());
+            int start = stream.indexOf("event: ");
+            int end = start < 0 ? -1 : stream.indexOf("\n\n", start);
+            if (end > 0) {
+              received.complete(stream.substring(start, end));
+            }
+          });
+        })
+        .onFailure(received::completeExceptionally);
+    try {
+      return received.get(10, TimeUnit.SECONDS);
+    } finally {
+      client.close();
+    }
+  }
+
+  private static JsonObject sampleHarvestable(SampleId harvestableId) {
+    return new JsonObject()
+        .put("id", harvestableId.toString())
+        .put("name", "Test harvest job")
+        .put("type", "oaiPmh")
+        .put("enabled", "false")
+        .put("harvestImmediately", "false")
+        .put("storage", new JsonObject()
+            .put("entityType", "inventoryStorageEntity")
+            .put("id", BASE_STORAGE_ID.toString()))
+        .put("transformation", new JsonObject()
+            .put("entityType", "basicTransformation")
+            .put("id", BASE_TRANSFORMATION_ID.toString()))
+        .put("metadataPrefix", "marc21")
+        .put("oaiSetName", "PALCI_RESHARE")
+        .put("url", "https://na01.alma.exlibrisgroup.com/view/oai/01SSHELCO_BLMSBRG/request")
+        .put("dateFormat", "yyyy-MM-dd'T'hh:mm:ss'Z'");
+  }
+
   @Test
   public void cannotCreateHarvestableWithWrongStorageId()
   {
@@ -662,6 +765,197 @@ public class HarvesterAdminTestSuite {
 
   }
 
+  @Test
+  public void canPagePreviousJobsByCursor() throws Exception {
+    tenantAction(TENANT, new JsonObject()
+        .put("module_to", "mod-harvester-admin-0.4.0-SNAPSHOT"));
+    storePreviousJob(new SampleId(1), "2023-01-10T10:00:00Z", "2023-01-10T10:05:00Z");
+    storePreviousJob(new SampleId(2), "2023-01-11T10:00:00Z", "2023-01-11T10:05:00Z");
+    storePreviousJob(new SampleId(3), "2023-01-12T10:00:00Z", "2023-01-12T10:05:00Z");
+
+    JsonObject firstPage = getPage("harvester-admin/previous-jobs?limit=2&totalRecords=exact");
+    assertThat(firstPage.getInteger("totalRecords"), is(3));
+    JsonArray jobs = firstPage.getJsonArray("previousJobs");
+    assertThat(jobs.size(), is(2));
+    // most recently started first
+    assertThat(jobs.getJsonObject(0).getLong("harvestableId"),
+        is((long) new SampleId(3).fullId()));
+    assertThat(jobs.getJsonObject(1).getLong("harvestableId"),
+        is((long) new SampleId(2).fullId()));
+
+    JsonObject lastPage = getPage("harvester-admin/previous-jobs?limit=2&after="
+        + firstPage.getString("nextCursor"));
+    assertThat(lastPage.getJsonArray("previousJobs").size(), is(1));
+    assertThat(lastPage.getJsonArray("previousJobs").getJsonObject(0).getLong("harvestableId"),
+        is((long) new SampleId(1).fullId()));
+    assertThat(lastPage.containsKey("nextCursor"), is(false));
+
+    RestAssured.given().header(OKAPI_TENANT)
+        .get("harvester-admin/previous-jobs?after=not-a-cursor")
+        .then().statusCode(400);
+    RestAssured.given().header(OKAPI_TENANT)
+        .get("harvester-admin/previous-jobs?query=cql.allRecords=1 sortBy name&after="
+            + firstPage.getString("nextCursor"))
+        .then().statusCode(400);
+
+    tenantAction(TENANT, new JsonObject()
+        .put("module_from", "mod-harvester-admin-0.4.0-SNAPSHOT")
+        .put("purge", true));
+  }
+
+  @Test
+  public void canPageLogAndFailedRecordsOfPreviousJobByCursor() throws Exception {
+    tenantAction(TENANT, new JsonObject()
+        .put("module_to", "mod-harvester-admin-0.4.0-SNAPSHOT"));
+    UUID jobId =
+        storePreviousJob(new SampleId(1), "2023-01-10T10:00:00Z", "2023-01-10T10:05:00Z");
+
+    Response firstLines = RestAssured.given().header(OKAPI_TENANT)
+        .get("harvester-admin/previous-jobs/" + jobId + "/log?limit=2")
+        .then().statusCode(200).extract().response();
+    assertThat(firstLines.asString().lines().count(), is(2L));
+    String cursor = firstLines.header("X-Next-Cursor");
+    assertTrue("Cursor to the rest of the log", cursor != null);
+    Response lastLine = RestAssured.given().header(OKAPI_TENANT)
+        .get("harvester-admin/previous-jobs/" + jobId + "/log?limit=2&after=" + cursor)
+        .then().statusCode(200).extract().response();
+    assertThat(lastLine.asString().lines().count(), is(1L));
+    assertTrue(lastLine.asString().contains("Done"));
+    assertThat(lastLine.header("X-Next-Cursor"), is((String) null));
+
+    JsonObject firstFailures = getPage("harvester-admin/previous-jobs/" + jobId
+        + "/failed-records?limit=1&totalRecords=exact");
+    assertThat(firstFailures.getInteger("totalRecords"), is(2));
+    assertThat(firstFailures.getJsonArray("failedRecords").size(), is(1));
+    JsonObject lastFailures = getPage("harvester-admin/previous-jobs/failed-records?limit=1&after="
+        + firstFailures.getString("nextCursor"));
+    assertThat(lastFailures.getJsonArray("failedRecords").size(), is(1));
+    assertThat(lastFailures.getJsonArray("failedRecords").getJsonObject(0).getString("id"),
+        not(firstFailures.getJsonArray("failedRecords").getJsonObject(0).getString("id")));
+    assertThat(getPage("harvester-admin/previous-jobs/failed-records?limit=1&after="
+        + lastFailures.getString("nextCursor")).getJsonArray("failedRecords").size(), is(0));
+
+    tenantAction(TENANT, new JsonObject()
+        .put("module_from", "mod-harvester-admin-0.4.0-SNAPSHOT")
+        .put("purge", true));
+  }
+
+  @Test
+  public void canPurgePreviousJobsByQueryAndTimeRange() throws Exception {
+    tenantAction(TENANT, new JsonObject()
+        .put("module_to", "mod-harvester-admin-0.4.0-SNAPSHOT"));
+    UUID firstJob =
+        storePreviousJob(new SampleId(1), "2023-01-10T10:00:00Z", "2023-01-10T10:05:00Z");
+    storePreviousJob(new SampleId(2), "2023-01-11T10:00:00Z", "2023-01-11T10:05:00Z");
+    storePreviousJob(new SampleId(3), "2023-01-12T10:00:00Z", "2023-01-12T10:05:00Z");
+
+    for (String invalid : new String[] {"yesterday", "2023-01-10' OR '1'='1"}) {
+      RestAssured.given().header(OKAPI_TENANT)
+          .queryParam("query", "cql.allRecords=1")
+          .queryParam("until", invalid)
+          .delete("harvester-admin/previous-jobs")
+          .then().statusCode(400);
+    }
+    assertThat(getPage("harvester-admin/previous-jobs?totalRecords=exact")
+        .getInteger("totalRecords"), is(3));
+
+    RestAssured.given().header(OKAPI_TENANT)
+        .queryParam("query", "cql.allRecords=1")
+        .queryParam("until", "2023-01-11T12:00:00")
+        .delete("harvester-admin/previous-jobs")
+        .then().statusCode(200)
+        .body("deleted", is(2));
+    JsonObject remaining = getPage("harvester-admin/previous-jobs?totalRecords=exact");
+    assertThat(remaining.getInteger("totalRecords"), is(1));
+    assertThat(remaining.getJsonArray("previousJobs").getJsonObject(0).getLong("harvestableId"),
+        is((long) new SampleId(3).fullId()));
+    RestAssured.given().header(OKAPI_TENANT)
+        .get("harvester-admin/previous-jobs/" + firstJob + "/log")
+        .then().statusCode(404);
+
+    RestAssured.given().header(OKAPI_TENANT)
+        .queryParam("query", "cql.allRecords=1")
+        .queryParam("from", "2023-01-12")
+        .delete("harvester-admin/previous-jobs")
+        .then().statusCode(200)
+        .body("deleted", is(1));
+
+    tenantAction(TENANT, new JsonObject()
+        .put("module_from", "mod-harvester-admin-0.4.0-SNAPSHOT")
+        .put("purge", true));
+  }
+
+  @Test
+  public void canImportAndExportConfigurations() {
+    SampleId harvestableId = new SampleId(1);
+    JsonObject harvestable = new JsonObject()
+        .put("id", harvestableId.toString())
+        .put("name", "Test harvest job (bulk import)")
+        .put("type", "oaiPmh")
+        .put("enabled", "false")
+        .put("harvestImmediately", "false")
+        .put("storage", new JsonObject().put("name", BASE_STORAGE_JSON.getString("name")))
+        .put("transformation",
+            new JsonObject().put("name", BASE_TRANSFORMATION_JSON.getString("name")))
+        .put("metadataPrefix", "marc21")
+        .put("oaiSetName", "PALCI_RESHARE")
+        .put("url", "https://localhost/oai");
+    JsonObject tsa = new JsonObject()
+        .put("step", new JsonObject().put("name", SAMPLE_STEP.getString("name")))
+        .put("transformationName", BASE_TRANSFORMATION_JSON.getString("name"))
+        .put("position", "1");
+    String ndjson = importLine("harvestable", harvestable)
+        + importLine("tsa", tsa)
+        + importLine("transformation", BASE_TRANSFORMATION_JSON)
+        + "\n"
+        + importLine("step", SAMPLE_STEP)
+        + importLine("storage", BASE_STORAGE_JSON)
+        + "{\"entityType\": \"unknown\", \"record\": {}}\n";
+
+    Map<Integer, JsonObject> outcomes = importConfigs(ndjson);
+    assertThat(outcomes.size(), is(6));
+    assertThat(outcomes.get(1).getInteger("status"), is(201));
+    assertThat(outcomes.get(2).getInteger("status"), is(201));
+    assertThat(outcomes.get(3).getInteger("status"), is(201));
+    assertThat(outcomes.get(5).getInteger("status"), is(201));
+    assertThat(outcomes.get(6).getInteger("status"), is(201));
+    assertThat(outcomes.get(7).getInteger("status"), is(400));
+    JsonObject transformation = responseJson(
+        getConfigRecord(THIS_TRANSFORMATIONS_PATH, BASE_TRANSFORMATION_ID.toString(), 200));
+    assertThat(transformation.getJsonArray("stepAssociations").size(), is(1));
+    JsonObject harvestableImported = responseJson(
+        getConfigRecord(THIS_HARVESTABLES_PATH, harvestableId.toString(), 200));
+    assertThat(harvestableImported.getJsonObject("storage").getString("id"),
+        is(BASE_STORAGE_ID.toString()));
+
+    String export = RestAssured.given()
+        .header(OKAPI_TENANT)
+        .get("harvester-admin/bulk/export")
+        .then()
+        .log().ifValidationFails().statusCode(200).extract().response().asString();
+    Map<String, String> exportedIds = new HashMap<>();
+    export.lines().map(JsonObject::new).forEach(line -> exportedIds.put(
+        line.getJsonObject("record").getString("id"), line.getString("entityType")));
+    assertThat(exportedIds.get(BASE_STORAGE_ID.toString()), is("storage"));
+    assertThat(exportedIds.get(SAMPLE_STEP_ID.toString()), is("step"));
+    assertThat(exportedIds.get(BASE_TRANSFORMATION_ID.toString()), is("transformation"));
+    assertThat(exportedIds.get(harvestableId.toString()), is("harvestable"));
+
+    // importing the same records again updates them
+    outcomes = importConfigs(ndjson);
+    assertThat(outcomes.get(1).getInteger("status"), is(200));
+    assertThat(outcomes.get(6).getInteger("status"), is(200));
+
+    // imported records are validated like records POSTed through the API
+    JsonObject withoutSetName = harvestable.copy().put("id", new SampleId(2).toString())
+        .put("name", "Test harvest job (bulk import, no set)");
+    withoutSetName.remove("oaiSetName");
+    outcomes = importConfigs(importLine("harvestable", withoutSetName)
+        + importLine("storage", BASE_STORAGE_JSON.copy().put("id", new SampleId(3).toString())));
+    assertThat(outcomes.get(1).getInteger("status"), is(400));
+    assertThat(outcomes.get(2).getInteger("status"), is(422));
+  }
+
   @Test
   public void deletingNonExistingConfigWillReturnNotFound() {
     deleteConfigRecord(THIS_TRANSFORMATIONS_PATH, "998877665544", 404);
@@ -679,6 +973,86 @@ public class HarvesterAdminTestSuite {
     putConfigRecord(THIS_STORAGES_PATH, "æøå", BASE_STORAGE_JSON, 400);
   }
 
+  static String importLine(String entityType, JsonObject record) {
+    return new JsonObject().put("entityType", entityType).put("record", record).encode() + "\n";
+  }
+
+  /**
+   * Imports configurations, and gets the outcomes by line number.
+   */
+  Map<Integer, JsonObject> importConfigs(String ndjson) {
+    String outcomes = RestAssured.given()
+        .header(OKAPI_TENANT)
+        .header("Content-Type", "application/x-ndjson")
+        .body(ndjson)
+        .post("harvester-admin/bulk/import")
+        .then()
+        .log().ifValidationFails().statusCode(200).extract().response().asString();
+    Map<Integer, JsonObject> outcomesByLine = new HashMap<>();
+    outcomes.lines().map(JsonObject::new)
+        .forEach(outcome -> outcomesByLine.put(outcome.getInteger("line"), outcome));
+    return outcomesByLine;
+  }
+
+  JsonObject getPage(String path) {
+    return new JsonObject(RestAssured.given()
+        .header(OKAPI_TENANT)
+        .get(path)
+        .then()
+        .log().ifValidationFails().statusCode(200).extract().response().asString());
+  }
+
+  /**
+   * Stores a job in the job history like a pull of a finished harvest job would, with three log
+   * lines and two failed records.
+   */
+  UUID storePreviousJob(SampleId harvestableId, String started, String finished)
+      throws Exception {
+    HarvestJob job = HarvestJob.fromHarvestableJson(new JsonObject()
+        .put("id", harvestableId.toString())
+        .put("name", "Test harvest job " + harvestableId)
+        .put("type", "oaiPmh")
+        .put("url", "http://localhost/oai")
+        .put("transformation", new JsonObject().put("name", "Test transformation"))
+        .put("storage", new JsonObject().put("name", "Test storage"))
+        .put("currentStatus", "OK")
+        .put("lastHarvestStarted", started)
+        .put("lastHarvestFinished", finished)
+        .put("amountHarvested", "100")
+        .put("message", "Done"));
+    String label = "[20230110 100000 - Test harvest job (" + harvestableId + ")]";
+    JsonArray failedRecords = new JsonArray();
+    for (String recordNumber : new String[] {"rec1.xml", "rec2.xml"}) {
+      failedRecords.add(new JsonObject()
+          .put("recordNumber", recordNumber)
+          .put("timeStamp", "Tue Jan 10 10:0" + failedRecords.size() + ":00 UTC 2023")
+          .put("original", "<record/>")
+          .put("transformedRecord", new JsonObject())
+          .put("recordErrors", new JsonArray().add(new JsonObject().put("message", "Error"))));
+    }
+    Storage storage = new Storage(vertx, TENANT);
+    return storage.storeHarvestJob(job)
+        .compose(stored -> storage.createPartitions(job.getId()))
+        .compose(partitions -> {
+          LogLineWriteStream logWriter = storage.logStatementsWriter(job.getId());
+          // the log is stored from lines longer than 100 characters only, like the Harvester's
+          logWriter.write(Buffer.buffer(
+              "2023-01-10 10:00:00,001 INFO  " + label
+                  + " OAI-PMH: Starting harvest of http://localhost/oai with metadataPrefix marc21\n"
+                  + "2023-01-10 10:02:00,001 INFO  " + label
+                  + " Harvested 100 records, 98 records stored, 2 records failed, 0 deleted\n"
+                  + "2023-01-10 10:05:00,001 INFO  " + label
+                  + " Done. Harvest of http://localhost/oai finished with status OK\n"));
+          logWriter.end();
+          return logWriter.stored();
+        })
+        .compose(logStored -> logStored == 3
+            ? storage.storeFailedRecords(job.getId(), failedRecords)
+            : Future.failedFuture("Stored " + logStored + " of 3 log lines"))
+        .map(job.getId())
+        .toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+
   void tenantAction(String tenant, JsonObject tenantAttributes) {
     ExtractableResponse<Response> response = RestAssured.given()
         .header(XOkapiHeaders.TENANT, tenant)